@@ -0,0 +1,34 @@
+package de.uni_passau.fim.se2.st.mensawebapp;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler, which reports the allocation rate per operation.
+ *
+ * <p>The arguments are regular JMH command line options, e.g., a regular expression that selects
+ * the benchmarks, or {@code -p weeks=52} to fix a parameter.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param pArgs The JMH command line options
+     * @throws CommandLineOptionException In case the options are invalid
+     * @throws RunnerException            In case a benchmark fails
+     */
+    public static void main(final String[] pArgs) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(pArgs))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
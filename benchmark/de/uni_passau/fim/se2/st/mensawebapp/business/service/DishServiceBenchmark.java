@@ -0,0 +1,141 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVCorpusGenerator;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.LocalCSVServer;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the lookups of the {@link DishService} on a cold and on a warm cache.
+ *
+ * <p>A cold lookup uses a new service on a storage that already holds the file of the week, so it
+ * measures loading the week from its snapshot or from the CSV file after a revalidation. A warm
+ * lookup hits the cache of parsed weeks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DishServiceBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2023, 11, 29);
+
+    /**
+     * A storage that holds the file of the benchmarked week, served by a local server.
+     */
+    @State(Scope.Benchmark)
+    public static class Storage {
+
+        LocalCSVServer server;
+
+        Path storagePath;
+
+        @Setup
+        public void setup() throws IOException, CSVLoadException {
+            server = new LocalCSVServer();
+            server.serve(new YearWeek(2023, 48), new CSVCorpusGenerator.Builder(42)
+                    .setStartDate(CalendarService.getFirstDayOfWeek(DATE)).build().toBytes());
+            storagePath = Files.createTempDirectory("benchmark");
+            newService().getDishes(DATE);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            server.close();
+            try (Stream<Path> files = Files.walk(storagePath)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+
+        DishService newService() {
+            return new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), TimeUnit.DAYS.toSeconds(1));
+        }
+    }
+
+    /**
+     * A new service for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Cold {
+
+        @Param({"snapshot", "csv"})
+        String loadFrom;
+
+        DishService service;
+
+        @Setup(Level.Invocation)
+        public void setup(final Storage pStorage) throws IOException {
+            if ("csv".equals(loadFrom)) {
+                Files.deleteIfExists(pStorage.storagePath.resolve("2023-48.snap"));
+            }
+            service = pStorage.newService();
+        }
+    }
+
+    /**
+     * A service whose cache holds the benchmarked week.
+     */
+    @State(Scope.Benchmark)
+    public static class Warm {
+
+        DishService service;
+
+        @Setup
+        public void setup(final Storage pStorage) throws CSVLoadException {
+            service = pStorage.newService();
+            service.getDishes(DATE);
+        }
+    }
+
+    @Benchmark
+    public List<Dish> getDishesCold(final Cold pCold) throws CSVLoadException {
+        return pCold.service.getDishes(DATE);
+    }
+
+    @Benchmark
+    public List<Dish> getDishesWarm(final Warm pWarm) throws CSVLoadException {
+        return pWarm.service.getDishes(DATE);
+    }
+
+    @Benchmark
+    public List<Dish> filterDishesCold(final Cold pCold) throws CSVLoadException {
+        return filter(pCold.service);
+    }
+
+    @Benchmark
+    public List<Dish> filterDishesWarm(final Warm pWarm) throws CSVLoadException {
+        return filter(pWarm.service);
+    }
+
+    private static List<Dish> filter(final DishService pService) throws CSVLoadException {
+        return pService.filterDishes(DATE, List.of(Additive.B), List.of(Allergen.A, Allergen.G), List.of(Tag.S));
+    }
+}
@@ -0,0 +1,100 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures parsing a CSV file into {@link Dish}es, downloaded from a {@link LocalCSVServer}.
+ *
+ * <p>{@code streamed} downloads and parses the file on every invocation, {@code local} revalidates
+ * the stored file and parses it from the storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVParserBenchmark {
+
+    private static final YearWeek YEAR_WEEK = new YearWeek(2023, 48);
+
+    private static final long SEED = 42;
+
+    @Param({"1", "52", "520"})
+    private int weeks;
+
+    @Param("12")
+    private int dishesPerDay;
+
+    @Param({"streamed", "local"})
+    private String source;
+
+    private LocalCSVServer server;
+
+    private Path storagePath;
+
+    private CSVFile file;
+
+    private CSVParser parser;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new LocalCSVServer();
+        server.serve(YEAR_WEEK, new CSVCorpusGenerator.Builder(SEED).setWeeks(weeks).setDishesPerDay(dishesPerDay)
+                .build().toBytes());
+        storagePath = Files.createTempDirectory("benchmark");
+        file = new CSVFile(storagePath, server.getBaseURI(), YEAR_WEEK.year(), YEAR_WEEK.week(),
+                new CSVStorageManifest(storagePath, server.getBaseURI()));
+        parser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+        file.download();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        if ("streamed".equals(source)) {
+            file.delete();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+        try (Stream<Path> files = Files.walk(storagePath)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Dish> parseDishes() throws IOException {
+        return parser.parseDishes();
+    }
+
+    @Benchmark
+    public List<Dish> parseDishesParallel() throws IOException {
+        return parser.parseDishesParallel();
+    }
+}
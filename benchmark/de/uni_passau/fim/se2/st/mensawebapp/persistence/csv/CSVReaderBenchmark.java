@@ -0,0 +1,84 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating the rows of a CSV file with a {@link CSVReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVReaderBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"1", "52", "520"})
+    private int weeks;
+
+    @Param("12")
+    private int dishesPerDay;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("benchmark", ".csv");
+        new CSVCorpusGenerator.Builder(SEED).setWeeks(weeks).setDishesPerDay(dishesPerDay).build().write(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void records(final Blackhole pBlackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            consume(new CSVReader(reader).records(), pBlackhole);
+        }
+    }
+
+    @Benchmark
+    public void mappedRecords(final Blackhole pBlackhole) throws IOException {
+        consume(CSVReader.map(file).records(), pBlackhole);
+    }
+
+    @Benchmark
+    public void rows(final Blackhole pBlackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (CSVReader.CSVRow row : new CSVReader(reader)) {
+                pBlackhole.consume(row.get("name"));
+            }
+        }
+    }
+
+    private static void consume(final Iterator<CSVRecord> pRecords, final Blackhole pBlackhole) {
+        while (pRecords.hasNext()) {
+            final CSVRecord record = pRecords.next();
+            pBlackhole.consume(record.length(0) + record.size());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups of the {@link Allergen}, {@link Additive}, and {@link Tag} tokens of the CSV
+ * files, on their own and as part of decoding the values of a row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenLookupBenchmark {
+
+    private final String[] allergenTokens = {"A", "AA", "C", "G", "HB", "I", "O"};
+
+    private final String[] tagTokens = {"V", "VG", "S", "MV", "B"};
+
+    private final String name = "Schweinebraten mit Knödel (2,3,A,C,G)";
+
+    private final String kennz = "S,MV";
+
+    @Benchmark
+    public void allergenForToken(final Blackhole pBlackhole) {
+        for (String token : allergenTokens) {
+            pBlackhole.consume(Allergen.getAllergenForToken(token));
+        }
+    }
+
+    @Benchmark
+    public void tagForToken(final Blackhole pBlackhole) {
+        for (String token : tagTokens) {
+            pBlackhole.consume(Tag.getTagForToken(token));
+        }
+    }
+
+    @Benchmark
+    public void additiveForIndex(final Blackhole pBlackhole) {
+        for (int index = 1; index <= 17; index++) {
+            pBlackhole.consume(Additive.getAdditiveForIndex(index));
+        }
+    }
+
+    @Benchmark
+    public Object decodeName() {
+        return DishNameDecoder.decode(name);
+    }
+
+    @Benchmark
+    public long decodeTags() {
+        return DishNameDecoder.decodeTags(kennz);
+    }
+}
@@ -1,7 +1,10 @@
 package de.uni_passau.fim.se2.st.mensawebapp.business.service;
 
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
 import java.time.LocalDate;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
 
 /** A service for calendar computations. */
 public final class CalendarService {
@@ -27,4 +30,84 @@ public static int getWeekNumber(final LocalDate pDate) {
   public static int getYear(final LocalDate pDate) {
     return pDate.getYear();
   }
+
+  /**
+   * Provides the year and week number for a given date.
+   *
+   * @param pDate The date
+   * @return The year and week of the date
+   * @see #getYear(LocalDate)
+   * @see #getWeekNumber(LocalDate)
+   */
+  public static YearWeek getYearWeek(final LocalDate pDate) {
+    return new YearWeek(getYear(pDate), getWeekNumber(pDate));
+  }
+
+  /**
+   * Provides the first day of the week of a given date.
+   *
+   * <p>Weeks are aligned to the first of January, so every week but the last one of a year starts
+   * on the same day of the week as the year.
+   *
+   * @param pDate The date
+   * @return The first day of the week of that date
+   */
+  public static LocalDate getFirstDayOfWeek(final LocalDate pDate) {
+    return pDate.minusDays((pDate.getDayOfYear() - 1) % 7);
+  }
+
+  /**
+   * Provides the first day of the week following the week of a given date.
+   *
+   * <p>The last week of a year may be shorter than seven days, the week after it always starts on
+   * the first of January.
+   *
+   * @param pDate The date
+   * @return The first day of the next week
+   */
+  public static LocalDate getFirstDayOfNextWeek(final LocalDate pDate) {
+    final LocalDate next = getFirstDayOfWeek(pDate).plusWeeks(1);
+    if (next.getYear() != pDate.getYear()) {
+      return LocalDate.of(next.getYear(), 1, 1);
+    }
+    return next;
+  }
+
+  /**
+   * Provides the first days of the week of a given date and of the weeks following it.
+   *
+   * @param pDate The date
+   * @param pWeeksAhead The number of following weeks
+   * @return The first days of {@code pWeeksAhead + 1} consecutive weeks in chronological order
+   */
+  public static List<LocalDate> getWeekStarts(final LocalDate pDate, final int pWeeksAhead) {
+    final List<LocalDate> weekStarts = new ArrayList<>(pWeeksAhead + 1);
+    LocalDate weekStart = getFirstDayOfWeek(pDate);
+    weekStarts.add(weekStart);
+    for (int i = 0; i < pWeeksAhead; i++) {
+      weekStart = getFirstDayOfNextWeek(weekStart);
+      weekStarts.add(weekStart);
+    }
+    return weekStarts;
+  }
+
+  /**
+   * Provides the distinct weeks that contain the days of a date range.
+   *
+   * @param pFrom The first day of the range
+   * @param pTo The last day of the range, inclusive
+   * @return The weeks in chronological order, empty if {@code pTo} is before {@code pFrom}
+   */
+  public static List<YearWeek> getYearWeeks(final LocalDate pFrom, final LocalDate pTo) {
+    final List<YearWeek> yearWeeks = new ArrayList<>();
+    if (pTo.isBefore(pFrom)) {
+      return yearWeeks;
+    }
+    for (LocalDate weekStart = getFirstDayOfWeek(pFrom);
+        !weekStart.isAfter(pTo);
+        weekStart = getFirstDayOfNextWeek(weekStart)) {
+      yearWeeks.add(getYearWeek(weekStart));
+    }
+    return yearWeeks;
+  }
 }
@@ -0,0 +1,356 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import com.google.common.collect.ImmutableList;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the {@link Dish}es of the loaded weeks.
+ *
+ * <p>Every indexed dish gets an ordinal, and for every {@link Allergen}, {@link Additive}, {@link
+ * Tag}, {@link DishType}, and date the index keeps a bitmap of the ordinals of the dishes that have
+ * it. A filter is evaluated as a few AND and AND-NOT operations of these bitmaps, followed by the
+ * materialisation of the selected dishes; its cost no longer grows with the number of criteria per
+ * dish.
+ *
+ * <p>The index is maintained incrementally: a loaded week is added as a block of consecutive
+ * ordinals in the order of its menu, an evicted or replaced week is cleared. Ordinals are not
+ * reused; once more than half of them are unused, the index is compacted.
+ *
+ * <p>Readers never block: the index is published as immutable versions through a volatile
+ * reference. Adding or removing a week copies the current version, changes the copy, and publishes
+ * it; writers are serialised, and a copy of the bitmaps per loaded or evicted week is cheap compared
+ * to the filters it no longer holds up.
+ */
+final class DishIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private volatile Version current = new Version(new Dish[INITIAL_CAPACITY]);
+
+    /**
+     * Indexes the menu of a week, replacing the one indexed for the week before.
+     *
+     * @param pYearWeek The week
+     * @param pMenu     The menu of the week
+     */
+    synchronized void add(final YearWeek pYearWeek, final WeekMenu pMenu) {
+        final Version next = current.copy();
+        final Block previous = next.blocks.remove(pYearWeek);
+        if (previous != null) {
+            next.clear(previous);
+        }
+        if (next.nextOrdinal + pMenu.size() > next.dishes.length) {
+            if (next.size + pMenu.size() <= next.dishes.length / 2) {
+                next.compact();
+            } else {
+                next.dishes = Arrays.copyOf(next.dishes,
+                        Math.max(next.dishes.length * 2, next.nextOrdinal + pMenu.size()));
+            }
+        }
+        next.blocks.put(pYearWeek, next.insert(pYearWeek, pMenu));
+        publish(next);
+    }
+
+    /**
+     * Removes the menu of a week from the index, unless another menu has been indexed for the week in
+     * the meantime.
+     *
+     * @param pYearWeek The week
+     * @param pMenu     The menu of the week that is removed
+     */
+    synchronized void remove(final YearWeek pYearWeek, final WeekMenu pMenu) {
+        final Block block = current.blocks.get(pYearWeek);
+        if (block != null && block.menu() == pMenu) {
+            final Version next = current.copy();
+            next.blocks.remove(pYearWeek);
+            next.clear(block);
+            publish(next);
+        }
+    }
+
+    /**
+     * Provides the number of indexed dishes.
+     *
+     * @return The number of dishes of all indexed weeks
+     */
+    int size() {
+        return current.statistics.size();
+    }
+
+    /**
+     * Provides the number of indexed dishes per criterion, as statistics for query planning.
+     *
+     * <p>The statistics are computed when a week is added or removed, so reading them takes no lock.
+     *
+     * @return A snapshot of the counts
+     */
+    Statistics getStatistics() {
+        return current.statistics;
+    }
+
+    private void publish(final Version pVersion) {
+        pVersion.statistics = new Statistics(pVersion.size, cardinalities(pVersion.additives),
+                cardinalities(pVersion.allergens), cardinalities(pVersion.tags), cardinalities(pVersion.types));
+        current = pVersion;
+    }
+
+    private static int[] cardinalities(final BitSet[] pBitSets) {
+        final int[] cardinalities = new int[pBitSets.length];
+        for (int i = 0; i < pBitSets.length; i++) {
+            cardinalities[i] = pBitSets[i].cardinality();
+        }
+        return cardinalities;
+    }
+
+    /**
+     * Filters the dishes of a range of dates.
+     *
+     * <p>A dish is selected if none of its additives, allergens, and tags is excluded, and, for each
+     * non-empty inclusion mask, it has at least one of the included tags or types. For every date,
+     * only the dishes of the menu of its week are considered, like in {@link WeekMenu#getDishes(
+     * LocalDate)}. The filter runs on the version of the index that is current when it starts and
+     * never waits for weeks that are added or removed in the meantime.
+     *
+     * @param pMenus             The menus the dishes have to be taken from, in the order of their
+     *                           weeks from {@code pFrom} to {@code pTo}
+     * @param pFrom              The first day of the range
+     * @param pTo                The last day of the range, inclusive
+     * @param pExcludedAdditives The bitmask of the excluded {@link Additive}s
+     * @param pExcludedAllergens The bitmask of the excluded {@link Allergen}s
+     * @param pExcludedTags      The bitmask of the excluded {@link Tag}s
+     * @param pIncludedTags      The bitmask of the included {@link Tag}s, {@code 0} to include all
+     * @param pIncludedTypes     The bitmask of the included {@link DishType}s, {@code 0} to include all
+     * @return The selected dishes ordered by date, or an empty optional if not all menus are indexed
+     */
+    Optional<List<Dish>> filter(final List<WeekMenu> pMenus, final LocalDate pFrom, final LocalDate pTo,
+                                final long pExcludedAdditives, final long pExcludedAllergens,
+                                final long pExcludedTags, final long pIncludedTags, final long pIncludedTypes) {
+        final Version version = current;
+        final Map<YearWeek, Block> rangeBlocks = new HashMap<>();
+        for (WeekMenu menu : pMenus) {
+            final Block block = version.findBlock(menu);
+            if (block == null) {
+                return Optional.empty();
+            }
+            rangeBlocks.put(block.yearWeek(), block);
+        }
+
+        final NavigableMap<LocalDate, BitSet> range = version.dates.subMap(pFrom, true, pTo, true);
+        final BitSet selection = new BitSet(version.nextOrdinal);
+        for (BitSet date : range.values()) {
+            selection.or(date);
+        }
+        andNot(selection, version.additives, pExcludedAdditives);
+        andNot(selection, version.allergens, pExcludedAllergens);
+        andNot(selection, version.tags, pExcludedTags);
+        and(selection, version.tags, pIncludedTags);
+        and(selection, version.types, pIncludedTypes);
+
+        final ImmutableList.Builder<Dish> result = ImmutableList.builder();
+        for (Map.Entry<LocalDate, BitSet> date : range.entrySet()) {
+            final Block block = rangeBlocks.get(CalendarService.getYearWeek(date.getKey()));
+            if (block == null) {
+                continue;
+            }
+            final BitSet ordinals = date.getValue();
+            for (int i = ordinals.nextSetBit(block.start()); i >= 0 && i < block.end();
+                 i = ordinals.nextSetBit(i + 1)) {
+                if (selection.get(i)) {
+                    result.add(version.dishes[i]);
+                }
+            }
+        }
+        return Optional.of(result.build());
+    }
+
+    private static void setBits(final BitSet[] pBitSets, final long pMask, final int pOrdinal) {
+        for (long mask = pMask; mask != 0; mask &= mask - 1) {
+            pBitSets[Long.numberOfTrailingZeros(mask)].set(pOrdinal);
+        }
+    }
+
+    private static void clearBits(final BitSet[] pBitSets, final long pMask, final int pOrdinal) {
+        for (long mask = pMask; mask != 0; mask &= mask - 1) {
+            pBitSets[Long.numberOfTrailingZeros(mask)].clear(pOrdinal);
+        }
+    }
+
+    private static void andNot(final BitSet pSelection, final BitSet[] pBitSets, final long pMask) {
+        for (long mask = pMask; mask != 0 && !pSelection.isEmpty(); mask &= mask - 1) {
+            pSelection.andNot(pBitSets[Long.numberOfTrailingZeros(mask)]);
+        }
+    }
+
+    private static void and(final BitSet pSelection, final BitSet[] pBitSets, final long pMask) {
+        if (pMask == 0) {
+            return;
+        }
+        final BitSet union = new BitSet();
+        for (long mask = pMask; mask != 0; mask &= mask - 1) {
+            union.or(pBitSets[Long.numberOfTrailingZeros(mask)]);
+        }
+        pSelection.and(union);
+    }
+
+    private static BitSet[] bitSets(final int pCount) {
+        final BitSet[] bitSets = new BitSet[pCount];
+        Arrays.setAll(bitSets, i -> new BitSet());
+        return bitSets;
+    }
+
+    /**
+     * A version of the index. A version is only modified by the writer that copied it, and never
+     * again once it has been published, so readers use it without locking.
+     */
+    private static final class Version {
+
+        private final BitSet[] additives = bitSets(Additive.values().length);
+
+        private final BitSet[] allergens = bitSets(Allergen.values().length);
+
+        private final BitSet[] tags = bitSets(Tag.values().length);
+
+        private final BitSet[] types = bitSets(DishType.values().length);
+
+        private final NavigableMap<LocalDate, BitSet> dates = new TreeMap<>();
+
+        private final Map<YearWeek, Block> blocks = new HashMap<>();
+
+        private Dish[] dishes;
+
+        private int nextOrdinal;
+
+        private int size;
+
+        private Statistics statistics;
+
+        private Version(final Dish[] pDishes) {
+            dishes = pDishes;
+            statistics = new Statistics(0, new int[additives.length], new int[allergens.length],
+                    new int[tags.length], new int[types.length]);
+        }
+
+        /**
+         * Copies this version for a writer, sharing only the immutable dishes, menus, and blocks.
+         */
+        private Version copy() {
+            final Version copy = new Version(dishes.clone());
+            copyBitSets(additives, copy.additives);
+            copyBitSets(allergens, copy.allergens);
+            copyBitSets(tags, copy.tags);
+            copyBitSets(types, copy.types);
+            for (Map.Entry<LocalDate, BitSet> date : dates.entrySet()) {
+                copy.dates.put(date.getKey(), (BitSet) date.getValue().clone());
+            }
+            copy.blocks.putAll(blocks);
+            copy.nextOrdinal = nextOrdinal;
+            copy.size = size;
+            return copy;
+        }
+
+        private Block findBlock(final WeekMenu pMenu) {
+            for (Block block : blocks.values()) {
+                if (block.menu() == pMenu) {
+                    return block;
+                }
+            }
+            return null;
+        }
+
+        private Block insert(final YearWeek pYearWeek, final WeekMenu pMenu) {
+            final int start = nextOrdinal;
+            for (Dish dish : pMenu.getDishes()) {
+                final int ordinal = nextOrdinal++;
+                dishes[ordinal] = dish;
+                setBits(additives, dish.additiveMask(), ordinal);
+                setBits(allergens, dish.allergenMask(), ordinal);
+                setBits(tags, dish.tagMask(), ordinal);
+                if (dish.type() != null) {
+                    types[dish.type().ordinal()].set(ordinal);
+                }
+                dates.computeIfAbsent(dish.date(), date -> new BitSet()).set(ordinal);
+            }
+            size += pMenu.size();
+            return new Block(pYearWeek, pMenu, start, nextOrdinal);
+        }
+
+        private void clear(final Block pBlock) {
+            for (int ordinal = pBlock.start(); ordinal < pBlock.end(); ordinal++) {
+                final Dish dish = dishes[ordinal];
+                clearBits(additives, dish.additiveMask(), ordinal);
+                clearBits(allergens, dish.allergenMask(), ordinal);
+                clearBits(tags, dish.tagMask(), ordinal);
+                if (dish.type() != null) {
+                    types[dish.type().ordinal()].clear(ordinal);
+                }
+                final BitSet date = dates.get(dish.date());
+                date.clear(ordinal);
+                if (date.isEmpty()) {
+                    dates.remove(dish.date());
+                }
+                dishes[ordinal] = null;
+            }
+            size -= pBlock.end() - pBlock.start();
+        }
+
+        /**
+         * Assigns new consecutive ordinals to all indexed weeks.
+         */
+        private void compact() {
+            final List<Block> indexed = List.copyOf(blocks.values());
+            for (BitSet[] bitSets : List.of(additives, allergens, tags, types)) {
+                for (BitSet bitSet : bitSets) {
+                    bitSet.clear();
+                }
+            }
+            dates.clear();
+            Arrays.fill(dishes, null);
+            nextOrdinal = 0;
+            size = 0;
+            for (Block block : indexed) {
+                blocks.put(block.yearWeek(), insert(block.yearWeek(), block.menu()));
+            }
+        }
+
+        private static void copyBitSets(final BitSet[] pSource, final BitSet[] pTarget) {
+            for (int i = 0; i < pSource.length; i++) {
+                pTarget[i].or(pSource[i]);
+            }
+        }
+    }
+
+    /**
+     * The number of indexed dishes in total and per criterion, indexed by the ordinals of the enums.
+     * The arrays are shared by all readers of the statistics and must not be modified.
+     *
+     * @param size      The number of indexed dishes
+     * @param additives The number of dishes per {@link Additive}
+     * @param allergens The number of dishes per {@link Allergen}
+     * @param tags      The number of dishes per {@link Tag}
+     * @param types     The number of dishes per {@link DishType}
+     */
+    record Statistics(int size, int[] additives, int[] allergens, int[] tags, int[] types) {
+    }
+
+    /**
+     * The consecutive ordinals {@code [start, end)} of the dishes of an indexed menu.
+     */
+    private record Block(YearWeek yearWeek, WeekMenu menu, int start, int end) {
+    }
+}
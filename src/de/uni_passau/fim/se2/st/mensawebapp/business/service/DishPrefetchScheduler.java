@@ -0,0 +1,314 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the current and upcoming weeks of a {@link DishService} ahead of demand.
+ *
+ * <p>Once started, the scheduler refreshes the current week and the configured number of following
+ * weeks in a fixed cadence. Additionally, it warms the weeks up shortly before every peak time on
+ * weekdays, e.g., before lunch. Every week is fetched on its own thread, a virtual thread on Java 21
+ * and later and a daemon thread of a cached pool on older runtimes such as Java 17; a week that
+ * cannot be loaded, for example because it has not been published yet, is skipped until the next
+ * round.
+ */
+public class DishPrefetchScheduler implements AutoCloseable {
+
+    private final DishService dishService;
+
+    private final Clock clock;
+
+    private final int weeksAhead;
+
+    private final Duration refreshInterval;
+
+    private final Set<LocalTime> peakTimes;
+
+    private final Duration warmUpLead;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService fetchExecutor;
+
+    private final boolean ownsFetchExecutor;
+
+    private final AtomicLong loadedWeeks = new AtomicLong();
+
+    private final AtomicLong failedWeeks = new AtomicLong();
+
+    private volatile boolean started;
+
+    private DishPrefetchScheduler(final Builder pBuilder) {
+        dishService = pBuilder.dishService;
+        clock = pBuilder.clock;
+        weeksAhead = pBuilder.weeksAhead;
+        refreshInterval = pBuilder.refreshInterval;
+        peakTimes = new TreeSet<>(pBuilder.peakTimes);
+        warmUpLead = pBuilder.warmUpLead;
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.daemonThreadFactory("dish-prefetch-scheduler"));
+        ownsFetchExecutor = pBuilder.fetchExecutor == null;
+        fetchExecutor = ownsFetchExecutor
+                ? VirtualThreads.newExecutor("dish-prefetch") : pBuilder.fetchExecutor;
+    }
+
+    /**
+     * Starts the periodic refreshes and the warm-ups before peak times.
+     *
+     * <p>The first refresh starts immediately.
+     *
+     * @throws IllegalStateException If the scheduler has already been started or closed
+     */
+    public synchronized void start() {
+        Preconditions.checkState(!started && !scheduler.isShutdown(), "Scheduler cannot be started twice.");
+        started = true;
+        scheduler.scheduleWithFixedDelay(this::prefetch, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduleWarmUp();
+    }
+
+    /**
+     * Loads the current week and the configured number of upcoming weeks, replacing their cached
+     * snapshots.
+     *
+     * <p>The weeks are loaded concurrently; the method returns once all of them are done.
+     *
+     * @return The number of weeks that were loaded successfully
+     */
+    public int prefetch() {
+        final List<Future<Boolean>> fetches = new ArrayList<>();
+        for (LocalDate weekStart : CalendarService.getWeekStarts(LocalDate.now(clock), weeksAhead)) {
+            final Callable<Boolean> fetch = () -> {
+                dishService.refresh(weekStart);
+                return true;
+            };
+            try {
+                fetches.add(fetchExecutor.submit(fetch));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        int loaded = 0;
+        for (Future<Boolean> fetch : fetches) {
+            try {
+                fetch.get();
+                loaded++;
+            } catch (ExecutionException e) {
+                failedWeeks.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        loadedWeeks.addAndGet(loaded);
+        return loaded;
+    }
+
+    /**
+     * Provides the total number of weeks this scheduler has loaded successfully.
+     *
+     * @return The number of loaded weeks
+     */
+    public long getLoadedWeeks() {
+        return loadedWeeks.get();
+    }
+
+    /**
+     * Provides the total number of weeks this scheduler failed to load.
+     *
+     * @return The number of failed weeks
+     */
+    public long getFailedWeeks() {
+        return failedWeeks.get();
+    }
+
+    /**
+     * Computes the next warm-up, the configured lead time before the next peak on a weekday.
+     *
+     * @param pNow The current time
+     * @return The time of the next warm-up strictly after {@code pNow}, or {@code null} if no peak
+     *     times are configured
+     */
+    ZonedDateTime getNextWarmUp(final ZonedDateTime pNow) {
+        if (peakTimes.isEmpty()) {
+            return null;
+        }
+        LocalDate date = pNow.toLocalDate();
+        while (true) {
+            if (isWeekday(date)) {
+                for (LocalTime peakTime : peakTimes) {
+                    final ZonedDateTime warmUp = ZonedDateTime.of(date, peakTime, pNow.getZone())
+                            .minus(warmUpLead);
+                    if (warmUp.isAfter(pNow)) {
+                        return warmUp;
+                    }
+                }
+            }
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * Stops all scheduled refreshes and warm-ups.
+     *
+     * <p>Running fetches are interrupted; the default fetch executor is shut down.
+     */
+    @Override
+    public synchronized void close() {
+        scheduler.shutdownNow();
+        if (ownsFetchExecutor) {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    private void scheduleWarmUp() {
+        final ZonedDateTime now = ZonedDateTime.now(clock);
+        final ZonedDateTime next = getNextWarmUp(now);
+        if (next == null || scheduler.isShutdown()) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                prefetch();
+                scheduleWarmUp();
+            }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the scheduler has been closed concurrently
+        }
+    }
+
+    private static boolean isWeekday(final LocalDate pDate) {
+        final DayOfWeek dayOfWeek = pDate.getDayOfWeek();
+        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * A builder for {@link DishPrefetchScheduler}s.
+     */
+    public static class Builder {
+
+        private final DishService dishService;
+
+        private Clock clock = Clock.systemDefaultZone();
+
+        private int weeksAhead = 1;
+
+        private Duration refreshInterval = Duration.ofHours(1);
+
+        private Set<LocalTime> peakTimes = Set.of(LocalTime.of(11, 0));
+
+        private Duration warmUpLead = Duration.ofMinutes(10);
+
+        private ExecutorService fetchExecutor;
+
+        /**
+         * Instantiates a new builder for a scheduler of the given service.
+         *
+         * @param pDishService The service whose weeks are prefetched, must not be {@code null}
+         */
+        public Builder(final DishService pDishService) {
+            dishService = Preconditions.checkNotNull(pDishService);
+        }
+
+        /**
+         * Sets the clock that determines the current week and the peak times.
+         *
+         * @param pClock The clock, must not be {@code null}
+         * @return The instance of the builder
+         */
+        public Builder setClock(final Clock pClock) {
+            clock = Preconditions.checkNotNull(pClock);
+            return this;
+        }
+
+        /**
+         * Sets the number of weeks after the current one that are prefetched, defaults to one.
+         *
+         * @param pWeeksAhead The number of upcoming weeks, must not be negative
+         * @return The instance of the builder
+         */
+        public Builder setWeeksAhead(final int pWeeksAhead) {
+            Preconditions.checkArgument(pWeeksAhead >= 0, "Weeks ahead must not be negative.");
+            weeksAhead = pWeeksAhead;
+            return this;
+        }
+
+        /**
+         * Sets the delay between the end of one refresh and the start of the next, defaults to one
+         * hour.
+         *
+         * @param pRefreshInterval The refresh interval, must be positive
+         * @return The instance of the builder
+         */
+        public Builder setRefreshInterval(final Duration pRefreshInterval) {
+            Preconditions.checkArgument(pRefreshInterval.toMillis() > 0, "Refresh interval must be positive.");
+            refreshInterval = pRefreshInterval;
+            return this;
+        }
+
+        /**
+         * Sets the peak times on weekdays before which the weeks are warmed up, defaults to 11:00.
+         *
+         * @param pPeakTimes The peak times, may be empty to disable warm-ups
+         * @return The instance of the builder
+         */
+        public Builder setPeakTimes(final Set<LocalTime> pPeakTimes) {
+            peakTimes = Set.copyOf(pPeakTimes);
+            return this;
+        }
+
+        /**
+         * Sets how long before a peak time the weeks are warmed up, defaults to ten minutes.
+         *
+         * @param pWarmUpLead The lead time, must not be negative
+         * @return The instance of the builder
+         */
+        public Builder setWarmUpLead(final Duration pWarmUpLead) {
+            Preconditions.checkArgument(!pWarmUpLead.isNegative(), "Warm-up lead must not be negative.");
+            warmUpLead = pWarmUpLead;
+            return this;
+        }
+
+        /**
+         * Sets the executor the weeks are fetched on, defaults to one virtual thread per fetch, or a
+         * cached pool of daemon platform threads on runtimes before Java 21.
+         *
+         * <p>The scheduler does not shut down an executor set here.
+         *
+         * @param pFetchExecutor The executor, must not be {@code null}
+         * @return The instance of the builder
+         */
+        public Builder setFetchExecutor(final ExecutorService pFetchExecutor) {
+            fetchExecutor = Preconditions.checkNotNull(pFetchExecutor);
+            return this;
+        }
+
+        /**
+         * Builds the scheduler, it has to be started explicitly.
+         *
+         * @return The new scheduler
+         */
+        public DishPrefetchScheduler build() {
+            return new DishPrefetchScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.EnumMasks;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Price;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A query for {@link Dish}es of a range of dates, executed by {@link DishService#query(DishQuery)}.
+ *
+ * <p>Besides the dates, a query consists of independent criteria that all have to be met:
+ * <ul>
+ *     <li>An excluded set of {@link Additive}s, {@link Allergen}s, or {@link Tag}s rejects every dish
+ *     that has any of them, e.g., no nuts.</li>
+ *     <li>An included set accepts only dishes that have at least one of them, e.g., vegan or
+ *     vegetarian.</li>
+ *     <li>A set of {@link DishType}s accepts only dishes of these types.</li>
+ *     <li>Price bounds accept only dishes whose price for a {@link PriceGroup} is within the bounds,
+ *     inclusive.</li>
+ * </ul>
+ * Empty sets and unset bounds accept every dish.
+ *
+ * <p>A query is compiled into a plan of predicates on the bitmasks and prices of the dishes. The
+ * predicates are ordered by their estimated selectivity, so that most dishes are rejected by the
+ * first predicate tested; as every predicate is a single comparison, this is the cheapest order.
+ * {@link DishService#explain(DishQuery)} shows the plan with the estimated and actual selectivity of
+ * every predicate.
+ */
+public final class DishQuery {
+
+    /**
+     * The selectivity assumed for a price bound, for which no statistics are kept.
+     */
+    private static final double PRICE_BOUND_SELECTIVITY = 1.0 / 3;
+
+    private final LocalDate from;
+
+    private final LocalDate to;
+
+    private final long excludedAdditives;
+
+    private final long excludedAllergens;
+
+    private final long excludedTags;
+
+    private final long includedAdditives;
+
+    private final long includedAllergens;
+
+    private final long includedTags;
+
+    private final long types;
+
+    private final long[] minPrices;
+
+    private final long[] maxPrices;
+
+    private DishQuery(final Builder pBuilder) {
+        from = pBuilder.from;
+        to = pBuilder.to;
+        excludedAdditives = pBuilder.excludedAdditives;
+        excludedAllergens = pBuilder.excludedAllergens;
+        excludedTags = pBuilder.excludedTags;
+        includedAdditives = pBuilder.includedAdditives;
+        includedAllergens = pBuilder.includedAllergens;
+        includedTags = pBuilder.includedTags;
+        types = pBuilder.types;
+        minPrices = pBuilder.minPrices.clone();
+        maxPrices = pBuilder.maxPrices.clone();
+    }
+
+    /**
+     * Provides the first day of the query.
+     *
+     * @return The first day
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Provides the last day of the query.
+     *
+     * @return The last day, inclusive
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Compares this query to another object.
+     *
+     * <p>Queries are equal if they select the same dishes by the same criteria, regardless of the
+     * order in which the criteria were set; they serve as keys of memoized results.
+     *
+     * @param pObject The object to compare to
+     * @return Whether the object is an equal query
+     */
+    @Override
+    public boolean equals(final Object pObject) {
+        if (this == pObject) {
+            return true;
+        }
+        if (!(pObject instanceof DishQuery other)) {
+            return false;
+        }
+        return from.equals(other.from) && to.equals(other.to)
+                && excludedAdditives == other.excludedAdditives
+                && excludedAllergens == other.excludedAllergens
+                && excludedTags == other.excludedTags
+                && includedAdditives == other.includedAdditives
+                && includedAllergens == other.includedAllergens
+                && includedTags == other.includedTags
+                && types == other.types
+                && Arrays.equals(minPrices, other.minPrices)
+                && Arrays.equals(maxPrices, other.maxPrices);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(from, to, excludedAdditives, excludedAllergens, excludedTags,
+                includedAdditives, includedAllergens, includedTags, types);
+        result = 31 * result + Arrays.hashCode(minPrices);
+        return 31 * result + Arrays.hashCode(maxPrices);
+    }
+
+    /**
+     * Compiles the criteria into a plan, based on the statistics of the loaded dishes.
+     */
+    Plan compile(final DishIndex.Statistics pStatistics) {
+        final List<Criterion> criteria = new ArrayList<>();
+        if (excludedAdditives != 0) {
+            final long mask = excludedAdditives;
+            criteria.add(new Criterion("no additive of " + EnumMasks.asSet(Additive.values(), mask),
+                    none(pStatistics.additives(), mask, pStatistics.size()),
+                    dish -> (dish.additiveMask() & mask) == 0));
+        }
+        if (excludedAllergens != 0) {
+            final long mask = excludedAllergens;
+            criteria.add(new Criterion("no allergen of " + EnumMasks.asSet(Allergen.values(), mask),
+                    none(pStatistics.allergens(), mask, pStatistics.size()),
+                    dish -> (dish.allergenMask() & mask) == 0));
+        }
+        if (excludedTags != 0) {
+            final long mask = excludedTags;
+            criteria.add(new Criterion("no tag of " + EnumMasks.asSet(Tag.values(), mask),
+                    none(pStatistics.tags(), mask, pStatistics.size()),
+                    dish -> (dish.tagMask() & mask) == 0));
+        }
+        if (includedAdditives != 0) {
+            final long mask = includedAdditives;
+            criteria.add(new Criterion("any additive of " + EnumMasks.asSet(Additive.values(), mask),
+                    1 - none(pStatistics.additives(), mask, pStatistics.size()),
+                    dish -> (dish.additiveMask() & mask) != 0));
+        }
+        if (includedAllergens != 0) {
+            final long mask = includedAllergens;
+            criteria.add(new Criterion("any allergen of " + EnumMasks.asSet(Allergen.values(), mask),
+                    1 - none(pStatistics.allergens(), mask, pStatistics.size()),
+                    dish -> (dish.allergenMask() & mask) != 0));
+        }
+        if (includedTags != 0) {
+            final long mask = includedTags;
+            criteria.add(new Criterion("any tag of " + EnumMasks.asSet(Tag.values(), mask),
+                    1 - none(pStatistics.tags(), mask, pStatistics.size()),
+                    dish -> (dish.tagMask() & mask) != 0));
+        }
+        if (types != 0) {
+            final long mask = types;
+            criteria.add(new Criterion("type in " + EnumMasks.asSet(DishType.values(), mask),
+                    sum(pStatistics.types(), mask, pStatistics.size()),
+                    dish -> dish.type() != null && (EnumMasks.bit(dish.type()) & mask) != 0));
+        }
+        for (PriceGroup group : PriceGroup.values()) {
+            final long min = minPrices[group.ordinal()];
+            final long max = maxPrices[group.ordinal()];
+            if (min != Long.MIN_VALUE) {
+                criteria.add(new Criterion(String.format(Locale.ROOT, "%s price >= %s", group.getName(),
+                        Price.toBigDecimal(min)), PRICE_BOUND_SELECTIVITY, dish -> group.getCents(dish) >= min));
+            }
+            if (max != Long.MAX_VALUE) {
+                criteria.add(new Criterion(String.format(Locale.ROOT, "%s price <= %s", group.getName(),
+                        Price.toBigDecimal(max)), PRICE_BOUND_SELECTIVITY, dish -> group.getCents(dish) <= max));
+            }
+        }
+        criteria.sort(Comparator.comparingDouble(Criterion::estimatedSelectivity));
+        return new Plan(List.copyOf(criteria));
+    }
+
+    /**
+     * Estimates the fraction of dishes without any of the values of a mask, assuming that the values
+     * occur independently.
+     */
+    private static double none(final int[] pCounts, final long pMask, final int pSize) {
+        double selectivity = 1;
+        for (long mask = pMask; mask != 0; mask &= mask - 1) {
+            selectivity *= 1 - fraction(pCounts[Long.numberOfTrailingZeros(mask)], pSize);
+        }
+        return selectivity;
+    }
+
+    /**
+     * Estimates the fraction of dishes with one of the mutually exclusive values of a mask.
+     */
+    private static double sum(final int[] pCounts, final long pMask, final int pSize) {
+        double selectivity = 0;
+        for (long mask = pMask; mask != 0; mask &= mask - 1) {
+            selectivity += fraction(pCounts[Long.numberOfTrailingZeros(mask)], pSize);
+        }
+        return Math.min(1, selectivity);
+    }
+
+    private static double fraction(final int pCount, final int pSize) {
+        return pSize == 0 ? 0.5 : (double) pCount / pSize;
+    }
+
+    /**
+     * A compiled query: the predicates in the order in which they are tested.
+     */
+    static final class Plan {
+
+        private final List<Criterion> criteria;
+
+        private final Predicate<Dish>[] predicates;
+
+        @SuppressWarnings("unchecked")
+        private Plan(final List<Criterion> pCriteria) {
+            criteria = pCriteria;
+            predicates = pCriteria.stream().map(Criterion::predicate).toArray(Predicate[]::new);
+        }
+
+        /**
+         * Tests whether a dish meets all criteria, testing the predicates in the order of the plan.
+         */
+        boolean test(final Dish pDish) {
+            for (Predicate<Dish> predicate : predicates) {
+                if (!predicate.test(pDish)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Filters dishes like {@link #test(Dish)}, counting how many dishes every predicate tested and
+         * passed.
+         */
+        Explanation explain(final List<Dish> pDishes) {
+            final int[] tested = new int[criteria.size()];
+            final int[] passed = new int[criteria.size()];
+            final ImmutableList.Builder<Dish> result = ImmutableList.builder();
+            for (Dish dish : pDishes) {
+                int i = 0;
+                while (i < criteria.size()) {
+                    tested[i]++;
+                    if (!predicates[i].test(dish)) {
+                        break;
+                    }
+                    passed[i]++;
+                    i++;
+                }
+                if (i == criteria.size()) {
+                    result.add(dish);
+                }
+            }
+            final List<Explanation.Step> explainedSteps = new ArrayList<>();
+            for (int i = 0; i < criteria.size(); i++) {
+                explainedSteps.add(new Explanation.Step(criteria.get(i).description(),
+                        criteria.get(i).estimatedSelectivity(), tested[i], passed[i]));
+            }
+            return new Explanation(pDishes.size(), List.copyOf(explainedSteps), result.build());
+        }
+    }
+
+    private record Criterion(String description, double estimatedSelectivity, Predicate<Dish> predicate) {
+    }
+
+    /**
+     * The plan of an executed query with the estimated and actual selectivity of every predicate.
+     *
+     * <p>{@link #toString()} renders the plan as a table, one predicate per line in the order of
+     * testing.
+     *
+     * @param scanned The number of dishes in the range of dates of the query
+     * @param steps   The predicates in the order in which they were tested
+     * @param result  The dishes that met all criteria
+     */
+    public record Explanation(int scanned, List<Step> steps, List<Dish> result) {
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.ROOT, "scan %d dishes%n", scanned));
+            for (int i = 0; i < steps.size(); i++) {
+                final Step step = steps.get(i);
+                builder.append(String.format(Locale.ROOT, "%d. %-40s estimated %.3f, actual %.3f (%d of %d)%n",
+                        i + 1, step.description(), step.estimatedSelectivity(), step.actualSelectivity(),
+                        step.passed(), step.tested()));
+            }
+            return builder.append(String.format(Locale.ROOT, "result %d dishes", result.size())).toString();
+        }
+
+        /**
+         * One predicate of the plan.
+         *
+         * @param description          A description of the predicate
+         * @param estimatedSelectivity The estimated fraction of dishes that pass the predicate
+         * @param tested               The number of dishes the predicate was tested on
+         * @param passed               The number of dishes that passed the predicate
+         */
+        public record Step(String description, double estimatedSelectivity, int tested, int passed) {
+
+            /**
+             * Provides the actual fraction of the tested dishes that passed the predicate.
+             *
+             * @return The actual selectivity, {@code 1} if no dish was tested
+             */
+            public double actualSelectivity() {
+                return tested == 0 ? 1 : (double) passed / tested;
+            }
+        }
+    }
+
+    /**
+     * The groups of customers with their own prices.
+     */
+    public enum PriceGroup {
+        STUDENT("student"),
+        STAFF("staff"),
+        GUEST("guest");
+
+        private final String name;
+
+        PriceGroup(final String pName) {
+            name = pName;
+        }
+
+        /**
+         * Provides the name of the group.
+         *
+         * @return The name
+         */
+        public String getName() {
+            return name;
+        }
+
+        private long getCents(final Dish pDish) {
+            return switch (this) {
+                case STUDENT -> pDish.studentPriceCents();
+                case STAFF -> pDish.staffPriceCents();
+                case GUEST -> pDish.guestPriceCents();
+            };
+        }
+    }
+
+    /**
+     * A builder for {@link DishQuery}s.
+     */
+    public static class Builder {
+
+        private final LocalDate from;
+
+        private final LocalDate to;
+
+        private long excludedAdditives;
+
+        private long excludedAllergens;
+
+        private long excludedTags;
+
+        private long includedAdditives;
+
+        private long includedAllergens;
+
+        private long includedTags;
+
+        private long types;
+
+        private final long[] minPrices = new long[PriceGroup.values().length];
+
+        private final long[] maxPrices = new long[PriceGroup.values().length];
+
+        /**
+         * Instantiates a new builder for a query of a single day.
+         *
+         * @param pDate The day
+         */
+        public Builder(final LocalDate pDate) {
+            this(pDate, pDate);
+        }
+
+        /**
+         * Instantiates a new builder for a query of a range of dates.
+         *
+         * @param pFrom The first day of the range
+         * @param pTo   The last day of the range, inclusive
+         * @throws IllegalArgumentException If {@code pTo} is before {@code pFrom}
+         */
+        public Builder(final LocalDate pFrom, final LocalDate pTo) {
+            Preconditions.checkArgument(!pTo.isBefore(pFrom), "The range must not end before it starts.");
+            from = pFrom;
+            to = pTo;
+            Arrays.fill(minPrices, Long.MIN_VALUE);
+            Arrays.fill(maxPrices, Long.MAX_VALUE);
+        }
+
+        /**
+         * Sets the {@link Additive}s none of which a dish may have.
+         *
+         * @param pAdditives The excluded additives
+         * @return The instance of the builder
+         */
+        public Builder setExcludedAdditives(final Collection<Additive> pAdditives) {
+            excludedAdditives = EnumMasks.of(pAdditives);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Allergen}s none of which a dish may have.
+         *
+         * @param pAllergens The excluded allergens
+         * @return The instance of the builder
+         */
+        public Builder setExcludedAllergens(final Collection<Allergen> pAllergens) {
+            excludedAllergens = EnumMasks.of(pAllergens);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Tag}s none of which a dish may have.
+         *
+         * @param pTags The excluded tags
+         * @return The instance of the builder
+         */
+        public Builder setExcludedTags(final Collection<Tag> pTags) {
+            excludedTags = EnumMasks.of(pTags);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Additive}s at least one of which a dish must have.
+         *
+         * @param pAdditives The included additives, empty to accept every dish
+         * @return The instance of the builder
+         */
+        public Builder setIncludedAdditives(final Collection<Additive> pAdditives) {
+            includedAdditives = EnumMasks.of(pAdditives);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Allergen}s at least one of which a dish must have.
+         *
+         * @param pAllergens The included allergens, empty to accept every dish
+         * @return The instance of the builder
+         */
+        public Builder setIncludedAllergens(final Collection<Allergen> pAllergens) {
+            includedAllergens = EnumMasks.of(pAllergens);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Tag}s at least one of which a dish must have, e.g., vegan or vegetarian.
+         *
+         * @param pTags The included tags, empty to accept every dish
+         * @return The instance of the builder
+         */
+        public Builder setIncludedTags(final Collection<Tag> pTags) {
+            includedTags = EnumMasks.of(pTags);
+            return this;
+        }
+
+        /**
+         * Sets the {@link DishType}s of the dishes; dishes without a type never match a non-empty set.
+         *
+         * @param pTypes The types, empty to accept every dish
+         * @return The instance of the builder
+         */
+        public Builder setTypes(final Collection<DishType> pTypes) {
+            types = EnumMasks.of(pTypes);
+            return this;
+        }
+
+        /**
+         * Sets the lowest price of a dish for a group, inclusive.
+         *
+         * @param pGroup    The price group
+         * @param pMinPrice The lowest price, {@code null} to remove the bound
+         * @return The instance of the builder
+         * @throws ArithmeticException In case the price has a fraction of a cent
+         */
+        public Builder setMinPrice(final PriceGroup pGroup, final BigDecimal pMinPrice) {
+            minPrices[pGroup.ordinal()] = pMinPrice == null ? Long.MIN_VALUE : Price.toCents(pMinPrice);
+            return this;
+        }
+
+        /**
+         * Sets the highest price of a dish for a group, inclusive, e.g., a student price of at most
+         * 3.50.
+         *
+         * @param pGroup    The price group
+         * @param pMaxPrice The highest price, {@code null} to remove the bound
+         * @return The instance of the builder
+         * @throws ArithmeticException In case the price has a fraction of a cent
+         */
+        public Builder setMaxPrice(final PriceGroup pGroup, final BigDecimal pMaxPrice) {
+            maxPrices[pGroup.ordinal()] = pMaxPrice == null ? Long.MAX_VALUE : Price.toCents(pMaxPrice);
+            return this;
+        }
+
+        /**
+         * Builds the query.
+         *
+         * @return The new query
+         */
+        public DishQuery build() {
+            return new DishQuery(this);
+        }
+    }
+}
@@ -1,34 +1,116 @@
 package de.uni_passau.fim.se2.st.mensawebapp.business.service;
 
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.EnumMasks;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVDownloadCoordinator;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVFile;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVParser;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVStorageManifest;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.DishPublisher;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.WeekSnapshot;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.exception.CSVParserException;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
+/**
+ * A service for {@link Dish}es.
+ *
+ * <p>The service is thread-safe without locking its readers: every parsed week is published as an
+ * immutable {@link WeekMenu} snapshot. Loading or refreshing a week builds a new snapshot and swaps
+ * it in atomically, readers keep using the snapshot they already hold.
+ *
+ * <p>The methods ending in {@code Async} return a {@link CompletableFuture} instead of blocking the
+ * caller during downloads and parses, so callers can fan out over several days.
+ */
 public class DishService {
 
-    private final String pDateTimePattern;
+    /**
+     * The default maximum weight of the cache of parsed weeks, an estimate of their heap size in bytes.
+     */
+    public static final long DEFAULT_MAX_CACHE_WEIGHT = 64L * 1024 * 1024;
+
+    /**
+     * The default disk budget for the downloaded files in bytes.
+     */
+    public static final long DEFAULT_MAX_DISK_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The maximum number of weeks that are loaded in parallel for date ranges.
+     */
+    public static final int RANGE_PARALLELISM = 4;
+
+    /**
+     * The maximum number of memoized results of single-day queries.
+     */
+    public static final int MAX_FILTER_RESULTS = 1024;
+
+    private static final ForkJoinPool RANGE_POOL = new ForkJoinPool(RANGE_PARALLELISM);
+
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = VirtualThreads.newExecutor("dish-service");
+
     private final Path pStoragePath;
     private final URI pBaseURI;
 
     private final long maxAge;
 
-    private final List<CSVFile> files;
+    private final DateTimeFormatter dateTimeFormatter;
+
+    private final long maxDiskSize;
+
+    private final CSVStorageManifest manifest;
+
+    private final CSVDownloadCoordinator downloadCoordinator;
+
+    private final Cache<YearWeek, WeekMenu> weeks;
+
+    private final DishIndex index = new DishIndex();
+
+    /**
+     * The versions of the CSV files the cached menus were parsed from, by the identity of the menus.
+     */
+    private final Cache<WeekMenu, CSVFile.Version> menuVersions = CacheBuilder.newBuilder().weakKeys().build();
+
+    private volatile Executor asyncExecutor = DEFAULT_ASYNC_EXECUTOR;
+
+    private volatile Duration asyncTimeout;
+
+    private final Cache<DishQuery, FilterResult> filterResults = CacheBuilder.newBuilder()
+            .maximumSize(MAX_FILTER_RESULTS)
+            .recordStats()
+            .build();
 
     /**
      * Instantiates a new service for {@link Dish}es.
@@ -43,38 +125,304 @@ public DishService(
             final Path pStoragePath,
             final URI pBaseURI,
             final long pMaxAge) {
-        this.pDateTimePattern = pDateTimePattern;
+        this(pDateTimePattern, pStoragePath, pBaseURI, pMaxAge, DEFAULT_MAX_CACHE_WEIGHT);
+    }
+
+    /**
+     * Instantiates a new service for {@link Dish}es with a bounded cache of parsed weeks.
+     *
+     * <p>Parsed weeks are kept in memory for at most {@code pMaxAge} seconds, the same age after
+     * which their files are considered old. If the estimated heap size of all cached weeks exceeds
+     * {@code pMaxCacheWeight} bytes, the least recently used weeks are evicted.
+     *
+     * @param pDateTimePattern A pattern for date representation
+     * @param pStoragePath     The path to store the downloaded CSV files
+     * @param pBaseURI         The base URI prefix to download the CSV files from
+     * @param pMaxAge          The maximum age of a file before it will be deleted by the application
+     * @param pMaxCacheWeight  The maximum estimated heap size of the cached weeks in bytes
+     */
+    public DishService(
+            final String pDateTimePattern,
+            final Path pStoragePath,
+            final URI pBaseURI,
+            final long pMaxAge,
+            final long pMaxCacheWeight) {
+        this(pDateTimePattern, pStoragePath, pBaseURI, pMaxAge, pMaxCacheWeight, DEFAULT_MAX_DISK_SIZE);
+    }
+
+    /**
+     * Instantiates a new service for {@link Dish}es with a bounded cache of parsed weeks and a disk
+     * budget for the downloaded files.
+     *
+     * <p>The state of the storage is recovered from the files found in {@code pStoragePath}. When old
+     * data is deleted, files older than {@code pMaxAge} seconds are removed, and then the least
+     * recently used files until all files fit into {@code pMaxDiskSize} bytes.
+     *
+     * @param pDateTimePattern A pattern for date representation
+     * @param pStoragePath     The path to store the downloaded CSV files
+     * @param pBaseURI         The base URI prefix to download the CSV files from
+     * @param pMaxAge          The maximum age of a file before it will be deleted by the application
+     * @param pMaxCacheWeight  The maximum estimated heap size of the cached weeks in bytes
+     * @param pMaxDiskSize     The maximum total size of the downloaded files in bytes
+     * @see CSVStorageManifest
+     */
+    public DishService(
+            final String pDateTimePattern,
+            final Path pStoragePath,
+            final URI pBaseURI,
+            final long pMaxAge,
+            final long pMaxCacheWeight,
+            final long pMaxDiskSize) {
         this.pStoragePath = pStoragePath;
         this.pBaseURI = pBaseURI;
         maxAge = pMaxAge;
-        files = new LinkedList<>();
+        dateTimeFormatter = DateTimeFormatter.ofPattern(pDateTimePattern);
+        maxDiskSize = pMaxDiskSize;
+        manifest = new CSVStorageManifest(pStoragePath, pBaseURI);
+        downloadCoordinator = new CSVDownloadCoordinator();
+        weeks = CacheBuilder.newBuilder()
+                .expireAfterWrite(Math.max(0, pMaxAge), TimeUnit.SECONDS)
+                .maximumWeight(pMaxCacheWeight)
+                .weigher(new DishWeigher())
+                .removalListener((RemovalNotification<YearWeek, WeekMenu> notification) -> {
+                    index.remove(notification.getKey(), notification.getValue());
+                    invalidateFilterResults(notification.getKey());
+                })
+                .recordStats()
+                .build();
     }
 
     /**
      * Provides the list of {@link Dish}es for a given date.
      *
      * @param pSelectedDate The selected date
-     * @return A list of {@link Dish}es for that day
+     * @return An unmodifiable list of {@link Dish}es for that day
      * @throws CSVLoadException In case the CSV file could not be loaded
      */
-    public synchronized List<Dish> getDishes(final LocalDate pSelectedDate) throws CSVLoadException {
+    public List<Dish> getDishes(final LocalDate pSelectedDate) throws CSVLoadException {
+        return getWeek(CalendarService.getYearWeek(pSelectedDate)).getDishes(pSelectedDate);
+    }
+
+    /**
+     * Provides the {@link Dish}es for a given date grouped by their {@link DishType}.
+     *
+     * @param pSelectedDate The selected date
+     * @return An unmodifiable map from the types to the {@link Dish}es of that type for that day
+     * @throws CSVLoadException In case the CSV file could not be loaded
+     */
+    public Map<DishType, List<Dish>> getDishesByType(final LocalDate pSelectedDate)
+            throws CSVLoadException {
+        return getWeek(CalendarService.getYearWeek(pSelectedDate)).getDishesByType(pSelectedDate);
+    }
+
+    /**
+     * Provides the list of {@link Dish}es for a range of dates.
+     *
+     * <p>The distinct weeks of the range are loaded in parallel on a bounded pool shared by all
+     * services; the range may span several years.
+     *
+     * @param pFrom The first day of the range
+     * @param pTo   The last day of the range, inclusive
+     * @return An unmodifiable list of the {@link Dish}es of all days in the range, ordered by date
+     * @throws CSVLoadException         In case the CSV file of any of the weeks could not be loaded
+     * @throws IllegalArgumentException If {@code pTo} is before {@code pFrom}
+     */
+    public List<Dish> getDishes(final LocalDate pFrom, final LocalDate pTo) throws CSVLoadException {
+        Preconditions.checkArgument(!pTo.isBefore(pFrom), "The range must not end before it starts.");
+        final List<YearWeek> yearWeeks = CalendarService.getYearWeeks(pFrom, pTo);
+        return collect(yearWeeks, getWeeks(yearWeeks), pFrom, pTo, dish -> true);
+    }
+
+    /**
+     * Loads the week of a given date again and replaces its cached snapshot.
+     *
+     * <p>Readers are not blocked while the week is loaded; they see the previous snapshot until the
+     * new one has been published. If loading fails, the previous snapshot is kept. If the CSV file
+     * has not changed since the cached snapshot was parsed from it, e.g., because the server reports
+     * it as not modified, the file is not parsed again and the cached snapshot is kept together with
+     * the memoized query results on it.
+     *
+     * @param pSelectedDate A date in the week to refresh
+     * @throws CSVLoadException In case the CSV file could not be loaded
+     */
+    public void refresh(final LocalDate pSelectedDate) throws CSVLoadException {
+        final YearWeek yearWeek = CalendarService.getYearWeek(pSelectedDate);
+        final Optional<WeekMenu> menu = loadWeek(yearWeek, false, weeks.asMap().get(yearWeek));
+        if (menu.isPresent()) {
+            index.add(yearWeek, menu.get());
+            weeks.put(yearWeek, menu.get());
+        }
+    }
+
+    /**
+     * Provides the menu of a week from the cache, loading it on a miss. Hits are recorded as accesses
+     * in the manifest, so that the disk budget evicts the least recently used files.
+     */
+    private WeekMenu getWeek(final YearWeek pYearWeek) throws CSVLoadException {
+        try {
+            final WeekMenu menu = weeks.get(pYearWeek, () -> {
+                final WeekMenu loaded = loadWeek(pYearWeek, true);
+                index.add(pYearWeek, loaded);
+                return loaded;
+            });
+            manifest.recordAccess(pYearWeek);
+            return menu;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CSVLoadException csvLoadException) {
+                throw csvLoadException;
+            }
+            throw new CSVLoadException("Couldn't load CSVFile");
+        } catch (UncheckedExecutionException e) {
+            throw new CSVLoadException("Couldn't load CSVFile");
+        }
+    }
+
+    /**
+     * Loads the distinct weeks of a range in parallel on a bounded pool shared by all services.
+     */
+    private List<WeekMenu> getWeeks(final List<YearWeek> pYearWeeks) throws CSVLoadException {
+        try {
+            return RANGE_POOL.invoke(new WeekLoader(pYearWeeks));
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof CSVLoadException csvLoadException) {
+                    throw csvLoadException;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Collects the {@link Dish}es of a range of dates that match a filter, taking every date from the
+     * menu of its week.
+     */
+    private static List<Dish> collect(final List<YearWeek> pYearWeeks, final List<WeekMenu> pMenus,
+                                      final LocalDate pFrom, final LocalDate pTo, final Predicate<Dish> pFilter) {
+        final ImmutableList.Builder<Dish> dishes = ImmutableList.builder();
+        int index = 0;
+        for (LocalDate date = pFrom; !date.isAfter(pTo); date = date.plusDays(1)) {
+            while (!pYearWeeks.get(index).equals(CalendarService.getYearWeek(date))) {
+                index++;
+            }
+            for (Dish dish : pMenus.get(index).getDishes(date)) {
+                if (pFilter.test(dish)) {
+                    dishes.add(dish);
+                }
+            }
+        }
+        return dishes.build();
+    }
+
+    /**
+     * Loads a week from its fresh {@link WeekSnapshot} if allowed and available, and otherwise from
+     * its CSV file, writing a new snapshot of the parsed version afterwards.
+     */
+    private WeekMenu loadWeek(final YearWeek pYearWeek, final boolean pUseSnapshot) throws CSVLoadException {
+        return loadWeek(pYearWeek, pUseSnapshot, null).orElseThrow();
+    }
+
+    /**
+     * Loads a week like {@link #loadWeek(YearWeek, boolean)}, but skips the parse if the CSV file
+     * still has the version the current menu was parsed from.
+     *
+     * @return The loaded menu, or an empty optional if the current menu is still up to date
+     */
+    private Optional<WeekMenu> loadWeek(final YearWeek pYearWeek, final boolean pUseSnapshot,
+                                        final WeekMenu pCurrent) throws CSVLoadException {
         CSVFile file;
         try {
-            file = new CSVFile(pStoragePath, pBaseURI, CalendarService.getYear(pSelectedDate),
-                    CalendarService.getWeekNumber(pSelectedDate));
+            file = createFile(pYearWeek);
         } catch (IllegalStateException | MalformedURLException exception) {
             throw new CSVLoadException("Couldn't load CSVFile");
         }
-        files.add(file);
-        CSVParser csvParser = new CSVParser(file, DateTimeFormatter.ofPattern(pDateTimePattern));
-        List<Dish> parsedDishesList;
-        try {
-            parsedDishesList = csvParser.parseDishes();
-        } catch (CSVParserException | IOException e) {
-            throw new CSVLoadException("Couldn't parse CSVFile");
+        try (CSVDownloadCoordinator.Lease ignored = downloadCoordinator.lease(pYearWeek)) {
+            if (pUseSnapshot) {
+                final Optional<WeekMenu> snapshot = WeekSnapshot.read(file, maxAge);
+                if (snapshot.isPresent()) {
+                    manifest.touch(pYearWeek);
+                    return snapshot;
+                }
+            }
+            final CSVFile.Version currentVersion = pCurrent == null ? null : menuVersions.getIfPresent(pCurrent);
+            final Optional<CSVParser.VersionedMenu> parsed;
+            try {
+                final CSVParser parser = new CSVParser(file, dateTimeFormatter, downloadCoordinator);
+                parsed = currentVersion == null
+                        ? Optional.of(parser.parseVersionedMenu())
+                        : parser.parseVersionedMenuIfChanged(currentVersion);
+            } catch (CSVParserException | IOException e) {
+                throw new CSVLoadException("Couldn't parse CSVFile");
+            }
+            if (parsed.isEmpty()) {
+                manifest.touch(pYearWeek);
+                return Optional.empty();
+            }
+            final WeekMenu menu = parsed.get().menu();
+            final CSVFile.Version version = parsed.get().version();
+            if (version != null) {
+                menuVersions.put(menu, version);
+                try {
+                    WeekSnapshot.write(file, menu, version);
+                } catch (IOException e) {
+                    // the snapshot only speeds up the next start, the parsed menu is still valid
+                }
+            }
+            manifest.touch(pYearWeek);
+            return Optional.of(menu);
         }
+    }
+
+    private CSVFile createFile(final YearWeek pYearWeek) throws MalformedURLException {
+        return new CSVFile(pStoragePath, pBaseURI, pYearWeek.year(), pYearWeek.week(), manifest);
+    }
 
-        return parsedDishesList.stream().filter(dish -> dish.date().equals(pSelectedDate)).collect(Collectors.toList());
+    /**
+     * The memoized result of a single-day query and the menu of the week it was computed from.
+     */
+    private record FilterResult(WeekMenu menu, List<Dish> dishes) {
+    }
+
+    /**
+     * Loads a list of weeks by recursively splitting it and loading the halves in parallel.
+     */
+    private final class WeekLoader extends RecursiveTask<List<WeekMenu>> {
+
+        private final List<YearWeek> yearWeeks;
+
+        private WeekLoader(final List<YearWeek> pYearWeeks) {
+            yearWeeks = pYearWeeks;
+        }
+
+        @Override
+        protected List<WeekMenu> compute() {
+            if (yearWeeks.size() == 1) {
+                try {
+                    return List.of(getWeek(yearWeeks.get(0)));
+                } catch (CSVLoadException e) {
+                    throw new UncheckedExecutionException(e);
+                }
+            }
+            final int middle = yearWeeks.size() / 2;
+            final WeekLoader left = new WeekLoader(yearWeeks.subList(0, middle));
+            left.fork();
+            final List<WeekMenu> right = new WeekLoader(yearWeeks.subList(middle, yearWeeks.size())).compute();
+            final List<WeekMenu> menus = new ArrayList<>(left.join());
+            menus.addAll(right);
+            return menus;
+        }
+    }
+
+    /**
+     * Provides the statistics of the cache of parsed weeks.
+     *
+     * <p>A hit is a request that was answered without parsing a CSV file, an eviction is a parsed week
+     * that was dropped because it expired or the cache exceeded its maximum weight.
+     *
+     * @return A snapshot of the statistics of the cache
+     */
+    public CacheStats getCacheStats() {
+        return weeks.stats();
     }
 
     /**
@@ -86,35 +434,370 @@ public synchronized List<Dish> getDishes(final LocalDate pSelectedDate) throws C
      * @param pSelectedAdditives A list of selected {@link Additive}s
      * @param pSelectedAllergens A list of selected {@link Allergen}s
      * @param pSelectedTags      A list of selected {@link Tag}s
-     * @return A list of {@link Dish}es that are suitable for the selection criteria
+     * @return An unmodifiable list of {@link Dish}es that are suitable for the selection criteria
      * @throws CSVLoadException In case the CSV file could not be loaded
+     * @see #query(DishQuery)
      */
-    public synchronized List<Dish> filterDishes(
+    public List<Dish> filterDishes(
             final LocalDate pSelectedDate,
             final Collection<Additive> pSelectedAdditives,
             final Collection<Allergen> pSelectedAllergens,
             final Collection<Tag> pSelectedTags)
             throws CSVLoadException {
-        return getDishes(pSelectedDate).stream().filter(dish -> Collections.disjoint(dish.tags(), pSelectedTags)
-                && Collections.disjoint(dish.additives(), pSelectedAdditives) && Collections.disjoint(
-                dish.allergens(), pSelectedAllergens)).collect(Collectors.toList());
+        return query(new DishQuery.Builder(pSelectedDate).setExcludedAdditives(pSelectedAdditives)
+                .setExcludedAllergens(pSelectedAllergens).setExcludedTags(pSelectedTags).build());
+    }
+
+    /**
+     * Filter the {@link Dish}es for a range of dates.
+     *
+     * <p>The criteria are the same as in {@link #filterDishes(LocalDate, Collection, Collection,
+     * Collection)}. The loaded weeks are kept in an inverted index, so the filter is evaluated on
+     * bitmaps of all dishes of the range at once instead of checking every dish.
+     *
+     * @param pFrom              The first day of the range
+     * @param pTo                The last day of the range, inclusive
+     * @param pSelectedAdditives A list of selected {@link Additive}s
+     * @param pSelectedAllergens A list of selected {@link Allergen}s
+     * @param pSelectedTags      A list of selected {@link Tag}s
+     * @return An unmodifiable list of {@link Dish}es that are suitable for the selection criteria,
+     * ordered by date
+     * @throws CSVLoadException         In case the CSV file of any of the weeks could not be loaded
+     * @throws IllegalArgumentException If {@code pTo} is before {@code pFrom}
+     */
+    public List<Dish> filterDishes(
+            final LocalDate pFrom,
+            final LocalDate pTo,
+            final Collection<Additive> pSelectedAdditives,
+            final Collection<Allergen> pSelectedAllergens,
+            final Collection<Tag> pSelectedTags)
+            throws CSVLoadException {
+        Preconditions.checkArgument(!pTo.isBefore(pFrom), "The range must not end before it starts.");
+        final long additives = EnumMasks.of(pSelectedAdditives);
+        final long allergens = EnumMasks.of(pSelectedAllergens);
+        final long tags = EnumMasks.of(pSelectedTags);
+        final List<YearWeek> yearWeeks = CalendarService.getYearWeeks(pFrom, pTo);
+        final List<WeekMenu> menus = getWeeks(yearWeeks);
+        // a week that was evicted concurrently is no longer indexed, its menu is scanned instead
+        return index.filter(menus, pFrom, pTo, additives, allergens, tags, 0L, 0L)
+                .orElseGet(() -> collect(yearWeeks, menus, pFrom, pTo, dish -> ((dish.additiveMask() & additives)
+                        | (dish.allergenMask() & allergens) | (dish.tagMask() & tags)) == 0L));
+    }
+
+    /**
+     * Provides the {@link Dish}es that match a {@link DishQuery}.
+     *
+     * <p>The query is compiled into a plan that tests the most selective criterion first, estimated
+     * from the number of loaded dishes per {@link Additive}, {@link Allergen}, {@link Tag}, and
+     * {@link DishType}.
+     *
+     * <p>The results of single-day queries are memoized, up to {@link #MAX_FILTER_RESULTS} of them; a
+     * memoized result is dropped as soon as its week is reloaded, refreshed, or evicted.
+     *
+     * @param pQuery The query
+     * @return An unmodifiable list of the matching {@link Dish}es, ordered by date
+     * @throws CSVLoadException In case the CSV file of any of the weeks could not be loaded
+     */
+    public List<Dish> query(final DishQuery pQuery) throws CSVLoadException {
+        if (pQuery.getFrom().equals(pQuery.getTo())) {
+            return queryDay(pQuery);
+        }
+        final List<YearWeek> yearWeeks = CalendarService.getYearWeeks(pQuery.getFrom(), pQuery.getTo());
+        final List<WeekMenu> menus = getWeeks(yearWeeks);
+        final DishQuery.Plan plan = pQuery.compile(index.getStatistics());
+        return collect(yearWeeks, menus, pQuery.getFrom(), pQuery.getTo(), plan::test);
+    }
+
+    /**
+     * Answers a single-day query from its memoized result if it was computed from the current menu of
+     * the week, and memoizes a new result otherwise.
+     */
+    private List<Dish> queryDay(final DishQuery pQuery) throws CSVLoadException {
+        final WeekMenu menu = getWeek(CalendarService.getYearWeek(pQuery.getFrom()));
+        final FilterResult memoized = filterResults.getIfPresent(pQuery);
+        if (memoized != null && memoized.menu() == menu) {
+            return memoized.dishes();
+        }
+        final DishQuery.Plan plan = pQuery.compile(index.getStatistics());
+        final ImmutableList.Builder<Dish> dishes = ImmutableList.builder();
+        for (Dish dish : menu.getDishes(pQuery.getFrom())) {
+            if (plan.test(dish)) {
+                dishes.add(dish);
+            }
+        }
+        final List<Dish> result = dishes.build();
+        filterResults.put(pQuery, new FilterResult(menu, result));
+        return result;
+    }
+
+    /**
+     * Drops the memoized results of all single-day queries of a week.
+     */
+    private void invalidateFilterResults(final YearWeek pYearWeek) {
+        filterResults.asMap().keySet()
+                .removeIf(query -> CalendarService.getYearWeek(query.getFrom()).equals(pYearWeek));
+    }
+
+    /**
+     * Provides the statistics of the memoized results of single-day queries.
+     *
+     * @return A snapshot of the statistics of the memoized results
+     * @see #query(DishQuery)
+     */
+    public CacheStats getFilterCacheStats() {
+        return filterResults.stats();
+    }
+
+    /**
+     * Executes a {@link DishQuery} and explains its plan.
+     *
+     * @param pQuery The query
+     * @return The criteria in the order in which they were tested, with their estimated and actual
+     * selectivity, and the matching {@link Dish}es
+     * @throws CSVLoadException In case the CSV file of any of the weeks could not be loaded
+     * @see #query(DishQuery)
+     */
+    public DishQuery.Explanation explain(final DishQuery pQuery) throws CSVLoadException {
+        final List<YearWeek> yearWeeks = CalendarService.getYearWeeks(pQuery.getFrom(), pQuery.getTo());
+        final List<WeekMenu> menus = getWeeks(yearWeeks);
+        final DishQuery.Plan plan = pQuery.compile(index.getStatistics());
+        return plan.explain(collect(yearWeeks, menus, pQuery.getFrom(), pQuery.getTo(), dish -> true));
+    }
+
+    /**
+     * Sets the executor of the asynchronous methods, defaults to a virtual thread per call, or a
+     * cached pool of daemon platform threads on runtimes before Java 21, e.g., Java 17.
+     *
+     * @param pExecutor The executor, must not be {@code null}
+     */
+    public void setAsyncExecutor(final Executor pExecutor) {
+        asyncExecutor = Preconditions.checkNotNull(pExecutor);
+    }
+
+    /**
+     * Sets the time after which the futures of the asynchronous methods complete exceptionally with a
+     * {@link TimeoutException}, defaults to no timeout.
+     *
+     * @param pTimeout The timeout, {@code null} for no timeout
+     * @throws IllegalArgumentException If the timeout is not positive
+     */
+    public void setAsyncTimeout(final Duration pTimeout) {
+        Preconditions.checkArgument(pTimeout == null || pTimeout.toNanos() > 0, "Timeout must be positive.");
+        asyncTimeout = pTimeout;
+    }
+
+    /**
+     * Provides the list of {@link Dish}es for a given date without blocking the caller.
+     *
+     * @param pSelectedDate The selected date
+     * @return A future of an unmodifiable list of {@link Dish}es for that day, completed exceptionally
+     * with a {@link CSVLoadException} in case the CSV file could not be loaded
+     * @see #getDishes(LocalDate)
+     */
+    public CompletableFuture<List<Dish>> getDishesAsync(final LocalDate pSelectedDate) {
+        return supplyAsync(() -> getDishes(pSelectedDate));
+    }
+
+    /**
+     * Provides the list of {@link Dish}es for a range of dates without blocking the caller.
+     *
+     * @param pFrom The first day of the range
+     * @param pTo   The last day of the range, inclusive
+     * @return A future of an unmodifiable list of the {@link Dish}es of all days in the range, ordered
+     * by date, completed exceptionally with a {@link CSVLoadException} in case the CSV file of any of
+     * the weeks could not be loaded
+     * @throws IllegalArgumentException If {@code pTo} is before {@code pFrom}
+     * @see #getDishes(LocalDate, LocalDate)
+     */
+    public CompletableFuture<List<Dish>> getDishesAsync(final LocalDate pFrom, final LocalDate pTo) {
+        Preconditions.checkArgument(!pTo.isBefore(pFrom), "The range must not end before it starts.");
+        return supplyAsync(() -> getDishes(pFrom, pTo));
+    }
+
+    /**
+     * Filter the {@link Dish}es for a given day without blocking the caller.
+     *
+     * @param pSelectedDate      The selected date
+     * @param pSelectedAdditives A list of selected {@link Additive}s
+     * @param pSelectedAllergens A list of selected {@link Allergen}s
+     * @param pSelectedTags      A list of selected {@link Tag}s
+     * @return A future of an unmodifiable list of {@link Dish}es that are suitable for the selection
+     * criteria, completed exceptionally with a {@link CSVLoadException} in case the CSV file could not
+     * be loaded
+     * @see #filterDishes(LocalDate, Collection, Collection, Collection)
+     */
+    public CompletableFuture<List<Dish>> filterDishesAsync(
+            final LocalDate pSelectedDate,
+            final Collection<Additive> pSelectedAdditives,
+            final Collection<Allergen> pSelectedAllergens,
+            final Collection<Tag> pSelectedTags) {
+        final DishQuery query = new DishQuery.Builder(pSelectedDate).setExcludedAdditives(pSelectedAdditives)
+                .setExcludedAllergens(pSelectedAllergens).setExcludedTags(pSelectedTags).build();
+        return queryAsync(query);
+    }
+
+    /**
+     * Provides the {@link Dish}es that match a {@link DishQuery} without blocking the caller.
+     *
+     * @param pQuery The query
+     * @return A future of an unmodifiable list of the matching {@link Dish}es, ordered by date,
+     * completed exceptionally with a {@link CSVLoadException} in case the CSV file of any of the weeks
+     * could not be loaded
+     * @see #query(DishQuery)
+     */
+    public CompletableFuture<List<Dish>> queryAsync(final DishQuery pQuery) {
+        return supplyAsync(() -> query(pQuery));
+    }
+
+    /**
+     * Provides a publisher of the {@link Dish}es for a range of dates that emits them day by day
+     * instead of collecting them into a list.
+     *
+     * <p>Every subscription runs on the executor of the asynchronous methods and loads the weeks of
+     * the range one after another, as the subscriber requests their dishes; a cancelled subscription
+     * loads no further weeks. A week that cannot be loaded is signalled as a {@link CSVLoadException}
+     * with {@link java.util.concurrent.Flow.Subscriber#onError(Throwable)}.
+     *
+     * @param pFrom The first day of the range
+     * @param pTo   The last day of the range, inclusive
+     * @return A publisher of the {@link Dish}es of all days in the range, ordered by date
+     * @throws IllegalArgumentException If {@code pTo} is before {@code pFrom}
+     * @see DishPublisher
+     */
+    public DishPublisher publishDishes(final LocalDate pFrom, final LocalDate pTo) {
+        Preconditions.checkArgument(!pTo.isBefore(pFrom), "The range must not end before it starts.");
+        return new DishPublisher(consumer -> {
+            for (LocalDate date = pFrom; !date.isAfter(pTo); date = date.plusDays(1)) {
+                getWeek(CalendarService.getYearWeek(date)).getDishes(date).forEach(consumer);
+            }
+        }, asyncExecutor);
+    }
+
+    /**
+     * Provides a publisher of the {@link Dish}es that match a {@link DishQuery}, filtered in the
+     * stream.
+     *
+     * @param pQuery The query
+     * @return A publisher of the matching {@link Dish}es, ordered by date
+     * @see #publishDishes(LocalDate, LocalDate)
+     * @see #query(DishQuery)
+     */
+    public DishPublisher publish(final DishQuery pQuery) {
+        return publishDishes(pQuery.getFrom(), pQuery.getTo())
+                .filter(pQuery.compile(index.getStatistics())::test);
+    }
+
+    /**
+     * Runs a call on the executor of the asynchronous methods.
+     *
+     * <p>A future that is cancelled or times out before its call has started skips the call. A call
+     * that is already running is not interrupted, as other readers may wait for the week it loads; its
+     * result is discarded.
+     */
+    private <T> CompletableFuture<T> supplyAsync(final AsyncCall<T> pCall) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            asyncExecutor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(pCall.call());
+                } catch (CSVLoadException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        final Duration timeout = asyncTimeout;
+        return timeout == null ? future : future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A blocking call of the service.
+     */
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+        T call() throws CSVLoadException;
+    }
+
+    /**
+     * Provides the manifest of the downloaded files.
+     *
+     * @return The manifest of the storage
+     */
+    public CSVStorageManifest getStorageManifest() {
+        return manifest;
     }
 
     /**
      * Delete old data.
      *
-     * <p>Old data is data that was downloaded longer than {@link #maxAge} seconds ago.
+     * <p>Old data is data that was downloaded longer than {@link #maxAge} seconds ago. Afterwards, the
+     * least recently used files are deleted until the storage fits into its disk budget. Files that
+     * are currently read by a parse are skipped.
      *
+     * <p>This runs one sweep of a {@link RetentionSweeper} on the calling thread. Long-running
+     * applications should start a sweeper instead, which deletes old data in the background.
+     *
+     * @return The result of the sweep
      * @see #maxAge
+     * @see RetentionSweeper
      */
-    public synchronized void deleteOldData() {
-        files.forEach(d -> d.delete(maxAge));
+    public RetentionSweeper.Sweep deleteOldData() {
+        final RetentionSweeper.Sweep sweep = new RetentionSweeper.Builder(this).build().sweep();
+        weeks.cleanUp();
+        return sweep;
     }
 
     /**
      * Delete all data.
+     *
+     * <p>Files that are currently read by a parse are deleted as soon as the parse has finished.
      */
-    public synchronized void deleteAllData() {
-        files.forEach(CSVFile::delete);
+    public void deleteAllData() {
+        for (CSVStorageManifest.Entry entry : manifest.getEntries()) {
+            delete(entry.yearWeek(), true);
+        }
+        weeks.invalidateAll();
+    }
+
+    /**
+     * Deletes the file of a week unless it is currently read by a parse.
+     *
+     * @param pYearWeek The week of the file
+     * @return The number of freed bytes, or {@code -1} if the file is currently read
+     */
+    long evict(final YearWeek pYearWeek) {
+        final long size = manifest.getEntry(pYearWeek).map(CSVStorageManifest.Entry::size).orElse(0L);
+        return delete(pYearWeek, false) ? size : -1;
+    }
+
+    Path getStoragePath() {
+        return pStoragePath;
+    }
+
+    long getMaxAge() {
+        return maxAge;
+    }
+
+    long getMaxDiskSize() {
+        return maxDiskSize;
+    }
+
+    private boolean delete(final YearWeek pYearWeek, final boolean pDeferIfLeased) {
+        final CSVFile file;
+        try {
+            file = createFile(pYearWeek);
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        final boolean deleted = pDeferIfLeased
+                ? downloadCoordinator.delete(file) : downloadCoordinator.deleteIfUnused(file);
+        if (deleted) {
+            manifest.forget(pYearWeek);
+        }
+        return deleted;
     }
 }
@@ -0,0 +1,43 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import com.google.common.cache.Weigher;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+
+/**
+ * Estimates the heap size of the {@link WeekMenu} of a week in bytes.
+ *
+ * <p>The estimate assumes a 64-bit JVM with compressed references and compact strings. It is meant
+ * to bound the cache of {@link DishService}, not to be exact.
+ */
+class DishWeigher implements Weigher<YearWeek, WeekMenu> {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int DISH = OBJECT_HEADER + 3 * REFERENCE + 6 * Long.BYTES;
+    private static final int STRING = 24 + OBJECT_HEADER;
+    private static final int LOCAL_DATE = 24;
+    private static final int INDEX_ENTRIES = 3;
+    private static final int DAY_INDEX = 160;
+
+    @Override
+    public int weigh(final YearWeek pYearWeek, final WeekMenu pMenu) {
+        long weight = OBJECT_HEADER + (long) pMenu.size() * INDEX_ENTRIES * REFERENCE
+                + (long) pMenu.getDates().size() * DAY_INDEX;
+        for (Dish dish : pMenu.getDishes()) {
+            weight += estimate(dish);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    /**
+     * Estimates the heap size of a single {@link Dish} including the objects only it refers to.
+     *
+     * @param pDish The dish
+     * @return The estimated size in bytes
+     */
+    static long estimate(final Dish pDish) {
+        return DISH + STRING + pDish.name().length() + LOCAL_DATE;
+    }
+}
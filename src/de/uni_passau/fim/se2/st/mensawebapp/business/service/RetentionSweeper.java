@@ -0,0 +1,412 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import com.google.common.base.Preconditions;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVStorageManifest;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Deletes old data from the storage of a {@link DishService} in the background.
+ *
+ * <p>Every sweep selects the files that are older than the maximum age of the service or exceed its
+ * disk budget, and scans the storage directory for leftovers: temporary files of downloads that
+ * were aborted long ago, snapshots without a CSV file, and CSV files the manifest does not know yet.
+ * The work is done in small batches; a started sweeper pauses between the batches and schedules
+ * itself on its own thread, so no request waits for a sweep. Files that are currently read by a parse
+ * are skipped and retried in the next sweep.
+ *
+ * <p>The result of every sweep is published to an optional listener and summed up in
+ * {@link #getTotalFreedBytes()}.
+ */
+public class RetentionSweeper implements AutoCloseable {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final DishService dishService;
+
+    private final Duration interval;
+
+    private final int batchSize;
+
+    private final Duration batchPause;
+
+    private final Duration temporaryFileAge;
+
+    private final Consumer<Sweep> listener;
+
+    private final AtomicLong totalFreedBytes = new AtomicLong();
+
+    private final AtomicLong failedSweeps = new AtomicLong();
+
+    private volatile Sweep lastSweep;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Pass scheduledPass;
+
+    private RetentionSweeper(final Builder pBuilder) {
+        dishService = pBuilder.dishService;
+        interval = pBuilder.interval;
+        batchSize = pBuilder.batchSize;
+        batchPause = pBuilder.batchPause;
+        temporaryFileAge = pBuilder.temporaryFileAge;
+        listener = pBuilder.listener;
+    }
+
+    /**
+     * Starts sweeping the storage periodically, the first sweep starts immediately.
+     *
+     * @throws IllegalStateException If the sweeper has already been started
+     */
+    public synchronized void start() {
+        Preconditions.checkState(scheduler == null, "Sweeper cannot be started twice.");
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.daemonThreadFactory("retention-sweeper"));
+        schedule(null, 0);
+    }
+
+    /**
+     * Sweeps the storage once on the calling thread, without pausing between the batches.
+     *
+     * @return The result of the sweep
+     */
+    public Sweep sweep() {
+        final Pass pass = new Pass();
+        try {
+            while (pass.runBatch()) {
+                // the next batch follows immediately
+            }
+        } catch (RuntimeException e) {
+            pass.close();
+            throw e;
+        }
+        return pass.finish();
+    }
+
+    /**
+     * Provides the result of the last completed sweep.
+     *
+     * @return The last sweep, or {@code null} if no sweep has completed yet
+     */
+    public Sweep getLastSweep() {
+        return lastSweep;
+    }
+
+    /**
+     * Provides the total number of bytes freed by all sweeps of this sweeper.
+     *
+     * @return The freed bytes
+     */
+    public long getTotalFreedBytes() {
+        return totalFreedBytes.get();
+    }
+
+    /**
+     * Provides the number of periodic sweeps that were abandoned because a batch or the listener
+     * threw an exception; the sweeps after them are scheduled as usual.
+     *
+     * @return The number of failed sweeps
+     */
+    public long getFailedSweeps() {
+        return failedSweeps.get();
+    }
+
+    /**
+     * Stops the periodic sweeps, a running batch is interrupted.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            final Pass pass = scheduledPass;
+            if (pass != null) {
+                pass.close();
+            }
+        }
+    }
+
+    /**
+     * Schedules the next batch of a sweep, or the start of a new sweep if {@code pPass} is
+     * {@code null}.
+     */
+    private void schedule(final Pass pPass, final long pDelayMillis) {
+        scheduledPass = pPass;
+        try {
+            scheduler.schedule(() -> {
+                Pass pass = pPass;
+                Pass next = null;
+                long delayMillis = interval.toMillis();
+                try {
+                    if (pass == null) {
+                        pass = new Pass();
+                    }
+                    if (pass.runBatch()) {
+                        next = pass;
+                        delayMillis = batchPause.toMillis();
+                    } else {
+                        pass.finish();
+                    }
+                } catch (RuntimeException e) {
+                    // the failed sweep is abandoned, the next one starts after the interval
+                    failedSweeps.incrementAndGet();
+                    if (pass != null) {
+                        pass.close();
+                    }
+                } finally {
+                    schedule(next, delayMillis);
+                }
+            }, pDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the sweeper has been closed
+            if (pPass != null) {
+                pPass.close();
+            }
+        }
+    }
+
+    /**
+     * One sweep through the storage, processed batch by batch.
+     *
+     * <p>The evictions are planned in memory, and the storage directory is listed lazily; every batch
+     * checks and lists only the files it handles. The listing stays open until the sweep has finished
+     * or failed.
+     */
+    private final class Pass {
+
+        private final long startNanos = System.nanoTime();
+
+        private final Iterator<YearWeek> evictions;
+
+        private final DirectoryStream<Path> listing;
+
+        private final Iterator<Path> leftovers;
+
+        private int deletedFiles;
+
+        private int skippedFiles;
+
+        private long freedBytes;
+
+        private Pass() {
+            evictions = dishService.getStorageManifest().planEvictions(dishService.getMaxAge(),
+                    dishService.getMaxDiskSize());
+            DirectoryStream<Path> files;
+            try {
+                files = Files.newDirectoryStream(dishService.getStoragePath());
+            } catch (IOException e) {
+                // there is nothing to scan in a missing storage
+                files = null;
+            }
+            listing = files;
+            leftovers = files == null ? Collections.emptyIterator() : files.iterator();
+        }
+
+        /**
+         * Processes the next batch of work.
+         *
+         * @return Whether work is left for another batch
+         */
+        private boolean runBatch() {
+            for (int i = 0; i < batchSize; i++) {
+                if (evictions.hasNext()) {
+                    evict(evictions.next());
+                } else if (leftovers.hasNext()) {
+                    inspect(leftovers.next());
+                } else {
+                    return false;
+                }
+            }
+            return evictions.hasNext() || leftovers.hasNext();
+        }
+
+        private void evict(final YearWeek pYearWeek) {
+            final long freed = dishService.evict(pYearWeek);
+            if (freed < 0) {
+                skippedFiles++;
+            } else {
+                deletedFiles++;
+                freedBytes += freed;
+            }
+        }
+
+        private void inspect(final Path pFile) {
+            final String name = pFile.getFileName().toString();
+            try {
+                if (name.endsWith(PART_SUFFIX)) {
+                    final long age = System.currentTimeMillis() - Files.getLastModifiedTime(pFile).toMillis();
+                    if (age > temporaryFileAge.toMillis()) {
+                        delete(pFile);
+                    }
+                } else if (name.endsWith(SNAPSHOT_SUFFIX)) {
+                    final String csvName = name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()) + ".csv";
+                    if (!Files.exists(pFile.resolveSibling(csvName))) {
+                        delete(pFile);
+                    }
+                } else {
+                    final Optional<YearWeek> yearWeek = CSVStorageManifest.parseYearWeek(pFile);
+                    yearWeek.ifPresent(dishService.getStorageManifest()::register);
+                }
+            } catch (IOException e) {
+                // the file vanished in the meantime
+            }
+        }
+
+        private void delete(final Path pFile) throws IOException {
+            final long size = Files.size(pFile);
+            if (Files.deleteIfExists(pFile)) {
+                deletedFiles++;
+                freedBytes += size;
+            }
+        }
+
+        private Sweep finish() {
+            close();
+            final Sweep sweep = new Sweep(deletedFiles, skippedFiles, freedBytes,
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+            totalFreedBytes.addAndGet(freedBytes);
+            lastSweep = sweep;
+            if (listener != null) {
+                listener.accept(sweep);
+            }
+            return sweep;
+        }
+
+        /**
+         * Closes the listing of the storage directory, a pass may be closed more than once.
+         */
+        private void close() {
+            if (listing == null) {
+                return;
+            }
+            try {
+                listing.close();
+            } catch (IOException e) {
+                // the listing is not read any further
+            }
+        }
+    }
+
+    /**
+     * The result of one sweep.
+     *
+     * @param deletedFiles The number of deleted files
+     * @param skippedFiles The number of files that were due for deletion but are currently read
+     * @param freedBytes   The number of bytes freed on the storage
+     * @param duration     The time from the start to the end of the sweep, including the pauses
+     */
+    public record Sweep(int deletedFiles, int skippedFiles, long freedBytes, Duration duration) {
+    }
+
+    /**
+     * A builder for {@link RetentionSweeper}s.
+     */
+    public static class Builder {
+
+        private final DishService dishService;
+
+        private Duration interval = Duration.ofMinutes(10);
+
+        private int batchSize = 32;
+
+        private Duration batchPause = Duration.ofMillis(50);
+
+        private Duration temporaryFileAge = Duration.ofHours(1);
+
+        private Consumer<Sweep> listener;
+
+        /**
+         * Instantiates a new builder for a sweeper of the given service.
+         *
+         * @param pDishService The service whose storage is swept, must not be {@code null}
+         */
+        public Builder(final DishService pDishService) {
+            dishService = Preconditions.checkNotNull(pDishService);
+        }
+
+        /**
+         * Sets the delay between the end of one sweep and the start of the next, defaults to ten
+         * minutes.
+         *
+         * @param pInterval The interval, must be positive
+         * @return The instance of the builder
+         */
+        public Builder setInterval(final Duration pInterval) {
+            Preconditions.checkArgument(pInterval.toMillis() > 0, "Interval must be positive.");
+            interval = pInterval;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of files handled in one batch, defaults to 32.
+         *
+         * @param pBatchSize The batch size, must be positive
+         * @return The instance of the builder
+         */
+        public Builder setBatchSize(final int pBatchSize) {
+            Preconditions.checkArgument(pBatchSize > 0, "Batch size must be positive.");
+            batchSize = pBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the pause between two batches of a started sweeper, defaults to 50 milliseconds.
+         *
+         * @param pBatchPause The pause, must not be negative
+         * @return The instance of the builder
+         */
+        public Builder setBatchPause(final Duration pBatchPause) {
+            Preconditions.checkArgument(!pBatchPause.isNegative(), "Batch pause must not be negative.");
+            batchPause = pBatchPause;
+            return this;
+        }
+
+        /**
+         * Sets the age after which a temporary file is considered a leftover of an aborted download,
+         * defaults to one hour.
+         *
+         * @param pTemporaryFileAge The age, must not be negative
+         * @return The instance of the builder
+         */
+        public Builder setTemporaryFileAge(final Duration pTemporaryFileAge) {
+            Preconditions.checkArgument(!pTemporaryFileAge.isNegative(), "Age must not be negative.");
+            temporaryFileAge = pTemporaryFileAge;
+            return this;
+        }
+
+        /**
+         * Sets the listener that receives the result of every sweep.
+         *
+         * @param pListener The listener, called on the thread of the sweep
+         * @return The instance of the builder
+         */
+        public Builder setListener(final Consumer<Sweep> pListener) {
+            listener = pListener;
+            return this;
+        }
+
+        /**
+         * Builds the sweeper, it has to be started explicitly.
+         *
+         * @return The new sweeper
+         */
+        public RetentionSweeper build() {
+            return new RetentionSweeper(this);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors that run every task on its own virtual thread.
+ *
+ * <p>Virtual threads are only available on Java 21 and later. On older runtimes the executors fall
+ * back to a cached pool of daemon platform threads.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates a new executor that starts a virtual thread for each task.
+     *
+     * @param pName The name prefix for the fallback platform threads
+     * @return A new executor, the caller is responsible for shutting it down
+     */
+    static ExecutorService newExecutor(final String pName) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+            } catch (Throwable ignored) {
+                // fall back to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(daemonThreadFactory(pName));
+    }
+
+    /**
+     * Creates a factory for daemon platform threads.
+     *
+     * @param pName The name prefix of the threads
+     * @return A new thread factory
+     */
+    static ThreadFactory daemonThreadFactory(final String pName) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, pName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static MethodHandle findFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
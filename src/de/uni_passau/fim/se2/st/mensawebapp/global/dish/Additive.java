@@ -57,6 +57,8 @@ public enum Additive {
   /** Phenylalanin */
   Q("Phenylalanin");
 
+  private static final Additive[] INDICES = values();
+
   private final String additive;
 
   Additive(final String pAdditive) {
@@ -83,8 +85,8 @@ public String getAdditive() {
    * @return An optional additive if one is found
    */
   public static Optional<Additive> getAdditiveForIndex(final int pIndex) {
-    if ((pIndex > 0) && (pIndex < 18)) {
-      return Optional.of(Additive.valueOf(String.valueOf((char) (64 + pIndex))));
+    if ((pIndex > 0) && (pIndex <= INDICES.length)) {
+      return Optional.of(INDICES[pIndex - 1]);
     }
     return Optional.empty();
   }
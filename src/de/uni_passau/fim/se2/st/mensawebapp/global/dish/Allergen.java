@@ -1,6 +1,8 @@
 package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
 
+import com.google.common.collect.Maps;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 
 /** Models the allergens of a {@link Dish}. */
@@ -99,6 +101,9 @@ public enum Allergen {
   /** Nitritpökelsalz */
   P("Nitritpökelsalz");
 
+  private static final Map<String, Allergen> TOKENS =
+      Maps.uniqueIndex(Arrays.asList(values()), Allergen::name);
+
   private final String allergen;
 
   Allergen(final String pAllergen) {
@@ -131,7 +136,7 @@ public static Optional<Allergen> getAllergenForName(final String pName) {
    * @return An optional allergen if one is found for the given token
    */
   public static Optional<Allergen> getAllergenForToken(final String pToken) {
-    return Arrays.stream(values()).filter(a -> a.name().equals(pToken)).findFirst();
+    return Optional.ofNullable(TOKENS.get(pToken));
   }
 
   /** {@inheritDoc} */
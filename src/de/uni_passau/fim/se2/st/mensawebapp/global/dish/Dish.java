@@ -7,18 +7,135 @@
 import java.util.LinkedHashSet;
 import java.util.Set;
 
-/** Models a single dish. */
+/**
+ * Models a single dish.
+ *
+ * <p>The {@link Additive}s, {@link Allergen}s, and {@link Tag}s of a dish are stored as bitmasks,
+ * see {@link EnumMasks}; the set accessors provide views of them. The prices are stored in cents,
+ * see {@link Price}; the {@link BigDecimal} accessors convert them.
+ */
 public record Dish(
     DishType type,
     String name,
-    Set<Additive> additives,
-    Set<Allergen> allergens,
-    Set<Tag> tags,
-    BigDecimal studentPrice,
-    BigDecimal staffPrice,
-    BigDecimal guestPrice,
+    long additiveMask,
+    long allergenMask,
+    long tagMask,
+    long studentPriceCents,
+    long staffPriceCents,
+    long guestPriceCents,
     LocalDate date) {
 
+  private static final Additive[] ADDITIVES = Additive.values();
+  private static final Allergen[] ALLERGENS = Allergen.values();
+  private static final Tag[] TAGS = Tag.values();
+
+  /**
+   * Instantiates a new dish from sets of additives, allergens, and tags.
+   *
+   * @param type The type of the dish
+   * @param name The name of the dish
+   * @param additives The additives of the dish
+   * @param allergens The allergens of the dish
+   * @param tags The tags of the dish
+   * @param studentPrice The price for students, without a fraction of a cent
+   * @param staffPrice The price for staff, without a fraction of a cent
+   * @param guestPrice The price for guests, without a fraction of a cent
+   * @param date The date the dish appears on the menu
+   * @throws ArithmeticException In case a price has a fraction of a cent
+   */
+  public Dish(
+      final DishType type,
+      final String name,
+      final Set<Additive> additives,
+      final Set<Allergen> allergens,
+      final Set<Tag> tags,
+      final BigDecimal studentPrice,
+      final BigDecimal staffPrice,
+      final BigDecimal guestPrice,
+      final LocalDate date) {
+    this(
+        type,
+        name,
+        EnumMasks.of(additives),
+        EnumMasks.of(allergens),
+        EnumMasks.of(tags),
+        Price.toCents(studentPrice),
+        Price.toCents(staffPrice),
+        Price.toCents(guestPrice),
+        date);
+  }
+
+  /**
+   * Provides the price for students.
+   *
+   * @return The price in euros with two fraction digits
+   */
+  public BigDecimal studentPrice() {
+    return Price.toBigDecimal(studentPriceCents);
+  }
+
+  /**
+   * Provides the price for staff.
+   *
+   * @return The price in euros with two fraction digits
+   */
+  public BigDecimal staffPrice() {
+    return Price.toBigDecimal(staffPriceCents);
+  }
+
+  /**
+   * Provides the price for guests.
+   *
+   * @return The price in euros with two fraction digits
+   */
+  public BigDecimal guestPrice() {
+    return Price.toBigDecimal(guestPriceCents);
+  }
+
+  /**
+   * Provides the additives of the dish.
+   *
+   * @return An unmodifiable view of the additives
+   */
+  public Set<Additive> additives() {
+    return EnumMasks.asSet(ADDITIVES, additiveMask);
+  }
+
+  /**
+   * Provides the allergens of the dish.
+   *
+   * @return An unmodifiable view of the allergens
+   */
+  public Set<Allergen> allergens() {
+    return EnumMasks.asSet(ALLERGENS, allergenMask);
+  }
+
+  /**
+   * Provides the tags of the dish.
+   *
+   * @return An unmodifiable view of the tags
+   */
+  public Set<Tag> tags() {
+    return EnumMasks.asSet(TAGS, tagMask);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return String.format(
+        "Dish[type=%s, name=%s, additives=%s, allergens=%s, tags=%s, studentPrice=%s, "
+            + "staffPrice=%s, guestPrice=%s, date=%s]",
+        type,
+        name,
+        additives(),
+        allergens(),
+        tags(),
+        studentPrice(),
+        staffPrice(),
+        guestPrice(),
+        date);
+  }
+
   /**
    * A builder for a {@link Dish}.
    *
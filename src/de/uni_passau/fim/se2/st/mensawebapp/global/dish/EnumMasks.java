@@ -0,0 +1,118 @@
+package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
+
+import com.google.common.base.Preconditions;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Encodes sets of constants of small enums as bitmasks.
+ *
+ * <p>The constant with ordinal {@code i} is represented by bit {@code i} of a {@code long}, so an
+ * enum must have at most 64 constants. {@link Additive}s, {@link Allergen}s, and {@link Tag}s of a
+ * {@link Dish} are stored this way; intersections and unions become single bitwise operations.
+ */
+public final class EnumMasks {
+
+  private EnumMasks() {}
+
+  /**
+   * Encodes a collection of enum constants as a bitmask.
+   *
+   * <p>{@code null} elements are ignored.
+   *
+   * @param pValues The enum constants
+   * @param <E> The type of the enum
+   * @return The bitmask with the bits of the ordinals of the constants set
+   */
+  public static <E extends Enum<E>> long of(final Collection<E> pValues) {
+    long mask = 0L;
+    for (E value : pValues) {
+      if (value != null) {
+        mask |= bit(value);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Provides the bit of a single enum constant.
+   *
+   * @param pValue The enum constant
+   * @return The bitmask with only the bit of the ordinal of the constant set
+   */
+  public static long bit(final Enum<?> pValue) {
+    return 1L << pValue.ordinal();
+  }
+
+  /**
+   * Provides an unmodifiable set view of a bitmask.
+   *
+   * <p>The view iterates in the order of the ordinals of the constants.
+   *
+   * @param pConstants All constants of the enum, in the order of their ordinals
+   * @param pMask The bitmask
+   * @param <E> The type of the enum
+   * @return A set view of the constants whose bits are set in the mask
+   */
+  public static <E extends Enum<E>> Set<E> asSet(final E[] pConstants, final long pMask) {
+    Preconditions.checkArgument(pConstants.length <= Long.SIZE);
+    return new MaskSet<>(pConstants, pMask);
+  }
+
+  private static final class MaskSet<E extends Enum<E>> extends AbstractSet<E> {
+
+    private final E[] constants;
+    private final long mask;
+
+    private MaskSet(final E[] pConstants, final long pMask) {
+      constants = pConstants;
+      mask = pMask;
+    }
+
+    @Override
+    public boolean contains(final Object pObject) {
+      if (!(pObject instanceof Enum<?> value)) {
+        return false;
+      }
+      final int ordinal = value.ordinal();
+      return ordinal < constants.length
+          && constants[ordinal] == value
+          && (mask & (1L << ordinal)) != 0;
+    }
+
+    @Override
+    public int size() {
+      return Long.bitCount(mask);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return mask == 0L;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      return new Iterator<>() {
+        private long remaining = mask;
+
+        @Override
+        public boolean hasNext() {
+          return remaining != 0L;
+        }
+
+        @Override
+        public E next() {
+          if (remaining == 0L) {
+            throw new NoSuchElementException();
+          }
+          final int ordinal = Long.numberOfTrailingZeros(remaining);
+          remaining &= remaining - 1;
+          return constants[ordinal];
+        }
+      };
+    }
+  }
+}
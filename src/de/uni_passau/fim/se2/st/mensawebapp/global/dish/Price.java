@@ -0,0 +1,141 @@
+package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Models a price as a whole number of cents.
+ *
+ * <p>Prices are exact: they can be compared and bounded without rounding, and converting them to and
+ * from {@link BigDecimal}s with two fraction digits is lossless.
+ *
+ * @param cents The price in cents
+ */
+public record Price(long cents) implements Comparable<Price> {
+
+  private static final int FRACTION_DIGITS = 2;
+
+  /**
+   * Provides the price of an amount in euros.
+   *
+   * @param pAmount The amount, must not have a fraction of a cent
+   * @return The price of the amount
+   * @throws ArithmeticException In case the amount has a fraction of a cent or is out of range
+   */
+  public static Price of(final BigDecimal pAmount) {
+    return new Price(toCents(pAmount));
+  }
+
+  /**
+   * Converts an amount in euros to cents.
+   *
+   * @param pAmount The amount, must not have a fraction of a cent
+   * @return The amount in cents
+   * @throws ArithmeticException In case the amount has a fraction of a cent or is out of range
+   */
+  public static long toCents(final BigDecimal pAmount) {
+    return pAmount.setScale(FRACTION_DIGITS, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Converts an amount in cents to euros.
+   *
+   * @param pCents The amount in cents
+   * @return The amount in euros with two fraction digits
+   */
+  public static BigDecimal toBigDecimal(final long pCents) {
+    return BigDecimal.valueOf(pCents, FRACTION_DIGITS);
+  }
+
+  /**
+   * Parses a price in the German format of the STWNO's CSV files, e.g. {@code 3,50}, to cents.
+   *
+   * <p>The value is parsed character by character without creating intermediate objects. A point is
+   * accepted as decimal separator, too; fraction digits beyond the cents must be zeros.
+   *
+   * @param pValue The formatted price
+   * @return The price in cents
+   * @throws NumberFormatException In case the value is not a price or has a fraction of a cent
+   */
+  public static long parseCents(final CharSequence pValue) {
+    final int length = pValue.length();
+    int i = 0;
+    final boolean negative = length > 0 && pValue.charAt(0) == '-';
+    if (negative) {
+      i++;
+    }
+    final int integerStart = i;
+    long cents = 0L;
+    try {
+      while (i < length && isDigit(pValue.charAt(i))) {
+        cents = Math.addExact(Math.multiplyExact(cents, 10L), pValue.charAt(i) - '0');
+        i++;
+      }
+      final boolean hasInteger = i > integerStart;
+      int fractionDigits = 0;
+      if (i < length && (pValue.charAt(i) == ',' || pValue.charAt(i) == '.')) {
+        i++;
+        while (i < length && isDigit(pValue.charAt(i))) {
+          final int digit = pValue.charAt(i) - '0';
+          if (fractionDigits < FRACTION_DIGITS) {
+            cents = Math.addExact(Math.multiplyExact(cents, 10L), digit);
+          } else if (digit != 0) {
+            throw new NumberFormatException("Fraction of a cent in price " + pValue);
+          }
+          fractionDigits++;
+          i++;
+        }
+      }
+      if (i != length || (!hasInteger && fractionDigits == 0)) {
+        throw new NumberFormatException("Not a price: " + pValue);
+      }
+      for (; fractionDigits < FRACTION_DIGITS; fractionDigits++) {
+        cents = Math.multiplyExact(cents, 10L);
+      }
+    } catch (ArithmeticException e) {
+      throw new NumberFormatException("Price out of range: " + pValue);
+    }
+    return negative ? -cents : cents;
+  }
+
+  private static boolean isDigit(final char pChar) {
+    return pChar >= '0' && pChar <= '9';
+  }
+
+  /**
+   * Parses a price in the German format of the STWNO's CSV files, e.g. {@code 3,50}.
+   *
+   * @param pValue The formatted price
+   * @return The price
+   * @throws NumberFormatException In case the value is not a price or has a fraction of a cent
+   * @see #parseCents(CharSequence)
+   */
+  public static Price parse(final CharSequence pValue) {
+    return new Price(parseCents(pValue));
+  }
+
+  /**
+   * Provides the price in euros.
+   *
+   * @return The price with two fraction digits
+   */
+  public BigDecimal toBigDecimal() {
+    return toBigDecimal(cents);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int compareTo(final Price pOther) {
+    return Long.compare(cents, pOther.cents);
+  }
+
+  /**
+   * Formats the price like the STWNO's CSV files, e.g. {@code 3,50}.
+   *
+   * @return The formatted price
+   */
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString().replace('.', ',');
+  }
+}
@@ -1,6 +1,8 @@
 package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
 
+import com.google.common.collect.Maps;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 
 /** Models the tags of a {@link Dish}. */
@@ -45,6 +47,8 @@ public enum Tag {
   /** DE-ÖKO-006 mit ausschließlich biologisch erzeugten Rohstoffen */
   B("DE-ÖKO-006 mit ausschließlich biologisch erzeugten Rohstoffen");
 
+  private static final Map<String, Tag> TOKENS = Maps.uniqueIndex(Arrays.asList(values()), Tag::name);
+
   private final String tag;
 
   Tag(final String pTag) {
@@ -77,7 +81,7 @@ public static Optional<Tag> getTagForName(final String pName) {
    * @return An optional tag if one is found with the given token
    */
   public static Optional<Tag> getTagForToken(final String pToken) {
-    return Arrays.stream(values()).filter(t -> t.name().equals(pToken)).findFirst();
+    return Optional.ofNullable(TOKENS.get(pToken));
   }
 
   /** {@inheritDoc} */
@@ -0,0 +1,141 @@
+package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Models the menu of one week, indexed by date and {@link DishType}.
+ *
+ * <p>A menu is immutable. The {@link Dish}es of a day are provided in the order in which they were
+ * added; looking them up is a constant-time map access.
+ */
+public final class WeekMenu {
+
+  private final List<Dish> dishes;
+  private final Map<LocalDate, List<Dish>> dishesByDate;
+  private final Map<LocalDate, Map<DishType, List<Dish>>> dishesByDateAndType;
+
+  private WeekMenu(
+      final List<Dish> pDishes,
+      final Map<LocalDate, List<Dish>> pDishesByDate,
+      final Map<LocalDate, Map<DishType, List<Dish>>> pDishesByDateAndType) {
+    dishes = pDishes;
+    dishesByDate = pDishesByDate;
+    dishesByDateAndType = pDishesByDateAndType;
+  }
+
+  /**
+   * Provides all {@link Dish}es of the week.
+   *
+   * @return An unmodifiable list of the dishes in the order in which they were added
+   */
+  public List<Dish> getDishes() {
+    return dishes;
+  }
+
+  /**
+   * Provides the {@link Dish}es of a day.
+   *
+   * @param pDate The date
+   * @return An unmodifiable list of the dishes of that day, empty if the week has none
+   */
+  public List<Dish> getDishes(final LocalDate pDate) {
+    return dishesByDate.getOrDefault(pDate, Collections.emptyList());
+  }
+
+  /**
+   * Provides the {@link Dish}es of a day grouped by their {@link DishType}.
+   *
+   * <p>Dishes without a type are not part of any group.
+   *
+   * @param pDate The date
+   * @return An unmodifiable map from the types to the dishes of that type, in the order of the types
+   */
+  public Map<DishType, List<Dish>> getDishesByType(final LocalDate pDate) {
+    return dishesByDateAndType.getOrDefault(pDate, Collections.emptyMap());
+  }
+
+  /**
+   * Provides the dates that have {@link Dish}es.
+   *
+   * @return An unmodifiable set of the dates in the order in which they first occurred
+   */
+  public Set<LocalDate> getDates() {
+    return dishesByDate.keySet();
+  }
+
+  /**
+   * Provides the number of {@link Dish}es of the week.
+   *
+   * @return The number of dishes
+   */
+  public int size() {
+    return dishes.size();
+  }
+
+  /** A builder for a {@link WeekMenu} that indexes the {@link Dish}es as they are added. */
+  public static class Builder {
+
+    private final ImmutableList.Builder<Dish> dishes = ImmutableList.builder();
+    private final Map<LocalDate, ImmutableList.Builder<Dish>> dishesByDate = new LinkedHashMap<>();
+    private final Map<LocalDate, Map<DishType, ImmutableList.Builder<Dish>>> dishesByDateAndType =
+        new LinkedHashMap<>();
+
+    /**
+     * Adds a {@link Dish} to the menu.
+     *
+     * @param pDish The dish, must not be {@code null}
+     * @return The instance of the builder
+     */
+    public Builder add(final Dish pDish) {
+      Preconditions.checkNotNull(pDish);
+      dishes.add(pDish);
+      dishesByDate.computeIfAbsent(pDish.date(), date -> ImmutableList.builder()).add(pDish);
+      if (pDish.type() != null) {
+        dishesByDateAndType
+            .computeIfAbsent(pDish.date(), date -> new EnumMap<>(DishType.class))
+            .computeIfAbsent(pDish.type(), type -> ImmutableList.builder())
+            .add(pDish);
+      }
+      return this;
+    }
+
+    /**
+     * Adds {@link Dish}es to the menu.
+     *
+     * @param pDishes The dishes
+     * @return The instance of the builder
+     */
+    public Builder addAll(final Iterable<Dish> pDishes) {
+      pDishes.forEach(this::add);
+      return this;
+    }
+
+    /**
+     * Builds the final {@link WeekMenu} object and returns it.
+     *
+     * @return The generated {@link WeekMenu} object
+     */
+    public WeekMenu build() {
+      final ImmutableMap.Builder<LocalDate, List<Dish>> byDate = ImmutableMap.builder();
+      dishesByDate.forEach((date, builder) -> byDate.put(date, builder.build()));
+      final ImmutableMap.Builder<LocalDate, Map<DishType, List<Dish>>> byDateAndType =
+          ImmutableMap.builder();
+      dishesByDateAndType.forEach(
+          (date, groups) -> {
+            final Map<DishType, List<Dish>> byType = new EnumMap<>(DishType.class);
+            groups.forEach((type, builder) -> byType.put(type, builder.build()));
+            byDateAndType.put(date, Collections.unmodifiableMap(byType));
+          });
+      return new WeekMenu(dishes.build(), byDate.build(), byDateAndType.build());
+    }
+  }
+}
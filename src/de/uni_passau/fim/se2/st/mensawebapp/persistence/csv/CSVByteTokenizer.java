@@ -0,0 +1,81 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the lines of UTF-8 encoded bytes, e.g., a memory-mapped file, into {@link CSVRecord}s.
+ *
+ * <p>The bytes are tokenized in place: neither the lines nor the values are decoded or copied.
+ * Lines are terminated like in {@link CSVTokenizer}.
+ */
+final class CSVByteTokenizer implements CSVLineTokenizer {
+
+    private final ByteBuffer input;
+
+    private final byte[] delimiter;
+
+    private final int limit;
+
+    private int position;
+
+    private int lineStart;
+
+    private int lineEnd;
+
+    CSVByteTokenizer(final ByteBuffer pInput, final String pDelimiter) {
+        input = pInput;
+        delimiter = pDelimiter.getBytes(StandardCharsets.UTF_8);
+        position = pInput.position();
+        limit = pInput.limit();
+    }
+
+    @Override
+    public boolean next(final CSVRecord pRecord) {
+        if (!advance()) {
+            return false;
+        }
+        pRecord.reset(input, lineStart, lineEnd, delimiter);
+        return true;
+    }
+
+    @Override
+    public String nextLine() {
+        if (!advance()) {
+            return null;
+        }
+        final byte[] line = new byte[lineEnd - lineStart];
+        input.get(lineStart, line);
+        return new String(line, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the next line and moves behind its terminator.
+     *
+     * @return Whether a line was found, {@code false} at the end of the input
+     */
+    private boolean advance() {
+        if (position >= limit) {
+            return false;
+        }
+        int scan = position;
+        byte current = 0;
+        while (scan < limit) {
+            current = input.get(scan);
+            if (current == '\n' || current == '\r') {
+                break;
+            }
+            scan++;
+        }
+        lineStart = position;
+        lineEnd = scan;
+        if (scan == limit) {
+            position = limit;
+        } else if (current == '\r' && scan + 1 < limit && input.get(scan + 1) == '\n') {
+            position = scan + 2;
+        } else {
+            position = scan + 1;
+        }
+        return true;
+    }
+}
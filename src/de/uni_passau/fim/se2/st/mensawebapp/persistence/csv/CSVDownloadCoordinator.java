@@ -0,0 +1,208 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Coordinates the downloads and deletions of {@link CSVFile}s that share one storage path.
+ *
+ * <p>Concurrent downloads of the same {@link YearWeek} are coalesced: the first caller performs the
+ * download, all callers that arrive while it is in flight wait for it and share its result.
+ *
+ * <p>Readers of a file hold a {@link Lease} on its week. A file is never deleted while it is leased:
+ * a deletion is either skipped or deferred until the last lease is released.
+ */
+public class CSVDownloadCoordinator {
+
+    private final ConcurrentMap<YearWeek, FutureTask<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<YearWeek, Integer> leases = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<YearWeek, CSVFile> deferredDeletions = new ConcurrentHashMap<>();
+
+    /**
+     * Downloads a file unless a download of the same week is already in flight, in which case the
+     * result of that download is awaited.
+     *
+     * @param pCSVFile The file to download
+     * @return Whether the download was successful
+     * @throws IOException In case of I/O errors
+     * @see CSVFile#download()
+     */
+    public boolean download(final CSVFile pCSVFile) throws IOException {
+        return download(pCSVFile, pCSVFile::download);
+    }
+
+    /**
+     * Runs a custom download of a file unless a download of the same week is already in flight, in
+     * which case the result of that download is awaited instead.
+     *
+     * <p>The custom download has to leave the file in the same state as {@link CSVFile#download()}.
+     *
+     * @param pCSVFile  The file to download
+     * @param pDownload The download to run if no other download of the week is in flight
+     * @return Whether the download was successful
+     * @throws IOException In case of I/O errors
+     */
+    public boolean download(final CSVFile pCSVFile, final Callable<Boolean> pDownload) throws IOException {
+        final FutureTask<Boolean> task = new FutureTask<>(pDownload);
+        FutureTask<Boolean> flight = inFlight.putIfAbsent(pCSVFile.getYearWeek(), task);
+        if (flight == null) {
+            flight = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(pCSVFile.getYearWeek(), task);
+            }
+        }
+        return await(flight);
+    }
+
+    /**
+     * Checks whether a download of a week is currently in flight.
+     *
+     * @param pYearWeek The week of the file
+     * @return Whether the file of that week is currently being downloaded
+     */
+    public boolean isDownloading(final YearWeek pYearWeek) {
+        return inFlight.containsKey(pYearWeek);
+    }
+
+    /**
+     * Leases the file of a week for reading.
+     *
+     * @param pYearWeek The week of the file
+     * @return The lease, which has to be closed when the file is no longer read
+     */
+    public Lease lease(final YearWeek pYearWeek) {
+        leases.merge(pYearWeek, 1, Integer::sum);
+        return new Lease(pYearWeek);
+    }
+
+    /**
+     * Checks whether the file of a week is currently leased for reading.
+     *
+     * @param pYearWeek The week of the file
+     * @return Whether the file has an open lease
+     */
+    public boolean isLeased(final YearWeek pYearWeek) {
+        return leases.containsKey(pYearWeek);
+    }
+
+    /**
+     * Deletes a file, or defers its deletion until its last lease is released.
+     *
+     * @param pCSVFile The file to delete
+     * @return Whether the file was deleted immediately
+     * @see CSVFile#delete()
+     */
+    public boolean delete(final CSVFile pCSVFile) {
+        final boolean[] deleted = new boolean[1];
+        leases.compute(pCSVFile.getYearWeek(), (yearWeek, count) -> {
+            if (count == null) {
+                deleted[0] = pCSVFile.delete();
+            } else {
+                deferredDeletions.put(yearWeek, pCSVFile);
+            }
+            return count;
+        });
+        return deleted[0];
+    }
+
+    /**
+     * Deletes a file if it is not leased.
+     *
+     * @param pCSVFile The file to delete
+     * @return Whether the file was deleted
+     * @see CSVFile#delete()
+     */
+    public boolean deleteIfUnused(final CSVFile pCSVFile) {
+        return deleteIfUnused(pCSVFile, pCSVFile::delete);
+    }
+
+    /**
+     * Deletes a file if it is older than {@code pAgeSeconds} and not leased.
+     *
+     * @param pCSVFile    The file to delete
+     * @param pAgeSeconds The minimum age of the file in seconds to be deleted
+     * @return Whether the file was deleted
+     * @see CSVFile#delete(long)
+     */
+    public boolean deleteIfUnused(final CSVFile pCSVFile, final long pAgeSeconds) {
+        return deleteIfUnused(pCSVFile, () -> pCSVFile.delete(pAgeSeconds));
+    }
+
+    private boolean deleteIfUnused(final CSVFile pCSVFile, final BooleanSupplier pDeletion) {
+        final boolean[] deleted = new boolean[1];
+        leases.compute(pCSVFile.getYearWeek(), (yearWeek, count) -> {
+            if (count == null) {
+                deleted[0] = pDeletion.getAsBoolean();
+            }
+            return count;
+        });
+        return deleted[0];
+    }
+
+    private void release(final YearWeek pYearWeek) {
+        leases.compute(pYearWeek, (yearWeek, count) -> {
+            if (count == null || count > 1) {
+                return count == null ? null : count - 1;
+            }
+            final CSVFile deferred = deferredDeletions.remove(yearWeek);
+            if (deferred != null) {
+                deferred.delete();
+            }
+            return null;
+        });
+    }
+
+    private static boolean await(final FutureTask<Boolean> pFlight) throws IOException {
+        try {
+            return pFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a download");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A lease on the file of a week that prevents its deletion while it is open.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final YearWeek yearWeek;
+
+        private boolean released;
+
+        private Lease(final YearWeek pYearWeek) {
+            yearWeek = pYearWeek;
+        }
+
+        /**
+         * Releases the lease and performs a deferred deletion if this was the last lease.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(yearWeek);
+            }
+        }
+    }
+}
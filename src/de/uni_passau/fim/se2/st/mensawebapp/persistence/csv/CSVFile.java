@@ -1,25 +1,35 @@
 package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
 
-import com.google.common.base.Preconditions;
-
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Date;
 
 /**
  * A utility class to deal with a CSV file.
+ *
+ * <p>If the file is given a {@link CSVValidatorStore}, it runs in revalidation mode: a local copy
+ * that was downloaded before is only fetched again if the server reports a change for it.
  */
 public class CSVFile {
 
+    private final YearWeek yearWeek;
+
     private final Path downloadPath;
 
+    private final Path snapshotPath;
+
     private final URL downloadURL;
 
+    private final CSVValidatorStore validatorStore;
 
     /**
      * Initialises the {@code CSVFile} class.
@@ -33,18 +43,44 @@ public class CSVFile {
      */
     public CSVFile(final Path pStoragePath, final URI pBaseURL, final int pYear, final int pWeek)
             throws MalformedURLException {
-        Preconditions.checkState(pWeek > 0 && pWeek < 54);
-        downloadPath = pStoragePath.resolve(String.format("%d-%d.csv", pYear, pWeek));
-        downloadURL = pBaseURL.resolve(String.format("%s/%d-%d.csv", pBaseURL, pYear, pWeek)).toURL();
+        this(pStoragePath, pBaseURL, pYear, pWeek, null);
+    }
+
+    /**
+     * Initialises the {@code CSVFile} class in revalidation mode.
+     *
+     * @param pStoragePath    The path to store the CSV file after downloading it
+     * @param pBaseURL        The base URL for the CSV files to get downloaded
+     * @param pYear           The year for the menu
+     * @param pWeek           The week for the menu
+     * @param pValidatorStore The store for the validators of the downloads, or {@code null} to always
+     *                        download the file unconditionally
+     * @throws MalformedURLException In case the resulting URL is invalid
+     * @throws IllegalStateException In case the week number is illegal
+     */
+    public CSVFile(final Path pStoragePath, final URI pBaseURL, final int pYear, final int pWeek,
+                   final CSVValidatorStore pValidatorStore) throws MalformedURLException {
+        yearWeek = new YearWeek(pYear, pWeek);
+        downloadPath = pStoragePath.resolve(String.format("%s.csv", yearWeek));
+        snapshotPath = pStoragePath.resolve(String.format("%s.snap", yearWeek));
+        downloadURL = pBaseURL.resolve(String.format("%s/%s.csv", pBaseURL, yearWeek)).toURL();
+        validatorStore = pValidatorStore;
     }
 
     /**
      * Delete the file from the storage.
      *
+     * <p>The {@link WeekSnapshot} of the file is deleted as well.
+     *
      * @return Whether deletion was successful
      */
     public boolean delete() {
-        return downloadPath.toFile().delete();
+        snapshotPath.toFile().delete();
+        final boolean deleted = downloadPath.toFile().delete();
+        if (deleted && validatorStore != null) {
+            validatorStore.remove(yearWeek);
+        }
+        return deleted;
     }
 
     /**
@@ -64,21 +100,72 @@ public boolean delete(final long pAgeSeconds) {
     /**
      * Download the file.
      *
+     * <p>In revalidation mode, the request is conditional on the validators of the previous download
+     * if the local copy still exists. A {@code 304 Not Modified} response keeps the local copy and
+     * counts as a successful download.
+     *
+     * <p>The content is written to a temporary file next to the CSV file first and then moved into
+     * place atomically, so that concurrent readers never see a partially written file.
+     *
      * @return Whether the download was successful
      * @throws IOException In case of I/O errors
+     * @see #openDownload()
      */
     public boolean download() throws IOException {
-        InputStream stream;
+        try (Download download = openDownload()) {
+            return download != null && download.commit();
+        }
+    }
+
+    /**
+     * Opens a download of the file whose content can be read while it is downloaded.
+     *
+     * <p>The request is sent like in {@link #download()}. Everything read from the {@link Download}
+     * is written to a temporary file, which only replaces the CSV file once it is committed.
+     *
+     * @return The open download, or {@code null} if the file does not exist on the server
+     * @throws IOException In case of I/O errors
+     */
+    public Download openDownload() throws IOException {
+        final URLConnection connection = downloadURL.openConnection();
+        final HttpURLConnection httpConnection =
+                connection instanceof HttpURLConnection http && validatorStore != null ? http : null;
+        if (httpConnection != null && exists()) {
+            validatorStore.get(yearWeek).ifPresent(validators -> validators.applyTo(httpConnection));
+        }
+        if (httpConnection != null && httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            httpConnection.disconnect();
+            return new Download(null, null);
+        }
+        final InputStream stream;
         try {
-            stream = downloadURL.openStream();
+            stream = connection.getInputStream();
         } catch (FileNotFoundException e) {
-            return false;
+            return null;
         }
-        try (final ReadableByteChannel readableByteChannel = Channels.newChannel(
-                stream); final FileOutputStream fileOutputStream = new FileOutputStream(downloadPath.toFile())) {
-            final long numberOfBytes = fileOutputStream.getChannel()
-                    .transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
-            return numberOfBytes > 0;
+        return new Download(stream, httpConnection);
+    }
+
+    /**
+     * Moves a completely written file into the place of the CSV file.
+     *
+     * <p>Readers of the CSV file see either the old or the new content, never a partial one.
+     */
+    private void commit(final Path pTemporaryPath) throws IOException {
+        try {
+            Files.move(pTemporaryPath, downloadPath, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(pTemporaryPath, downloadPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void rememberValidators(final HttpURLConnection pConnection) {
+        final CSVValidators validators = CSVValidators.of(pConnection);
+        if (validators.isEmpty()) {
+            validatorStore.remove(yearWeek);
+        } else {
+            validatorStore.put(yearWeek, validators);
         }
     }
 
@@ -103,6 +190,26 @@ public boolean hasAge(final long pAgeSeconds) {
         return diff > pAgeSeconds * 1000;
     }
 
+    /**
+     * Reads the version of the local copy of the file.
+     *
+     * @return The size and modification time of the local copy
+     * @throws IOException In case the local copy does not exist or cannot be read
+     */
+    public Version readVersion() throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(downloadPath, BasicFileAttributes.class);
+        return new Version(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Provides the week of the menu in this file.
+     *
+     * @return The year and week of the menu
+     */
+    public YearWeek getYearWeek() {
+        return yearWeek;
+    }
+
     /**
      * Provides the file object for the downloaded CSV file.
      *
@@ -111,4 +218,220 @@ public boolean hasAge(final long pAgeSeconds) {
     public File provideFile() {
         return downloadPath.toFile();
     }
+
+    /**
+     * Provides the path of the {@link WeekSnapshot} of this file.
+     *
+     * @return The path of the snapshot next to the CSV file
+     */
+    Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Provides the URL this file is downloaded from.
+     *
+     * @return The download URL
+     */
+    URL getDownloadURL() {
+        return downloadURL;
+    }
+
+    /**
+     * The version of a local copy of a {@link CSVFile}.
+     *
+     * @param size         The size of the local copy in bytes
+     * @param lastModified The modification time of the local copy in milliseconds since the epoch
+     */
+    public record Version(long size, long lastModified) {
+    }
+
+    /**
+     * An open download of a {@link CSVFile}.
+     *
+     * <p>The content read from the download is written to a temporary file on the fly. Committing
+     * the download reads the rest of the content and moves the temporary file into place; closing a
+     * download that was not committed discards the temporary file and keeps the previous copy.
+     */
+    public final class Download implements Closeable {
+
+        private final TeeInputStream body;
+
+        private final HttpURLConnection httpConnection;
+
+        private final Path temporaryPath;
+
+        private Download(final InputStream pStream, final HttpURLConnection pHttpConnection) throws IOException {
+            httpConnection = pHttpConnection;
+            if (pStream == null) {
+                body = null;
+                temporaryPath = null;
+                return;
+            }
+            Path temporary = null;
+            try {
+                temporary = Files.createTempFile(downloadPath.toAbsolutePath().getParent(),
+                        downloadPath.getFileName().toString(), ".part");
+                body = new TeeInputStream(pStream, new BufferedOutputStream(Files.newOutputStream(temporary)));
+            } catch (IOException | RuntimeException e) {
+                try (InputStream ignored = pStream) {
+                    if (temporary != null) {
+                        Files.deleteIfExists(temporary);
+                    }
+                } catch (IOException cleanupFailure) {
+                    e.addSuppressed(cleanupFailure);
+                }
+                throw e;
+            }
+            temporaryPath = temporary;
+        }
+
+        /**
+         * Checks whether the server reported that the local copy is still up to date.
+         *
+         * <p>In that case there is no content to read, the local copy can be read instead.
+         *
+         * @return Whether the local copy is up to date
+         */
+        public boolean isNotModified() {
+            return body == null;
+        }
+
+        /**
+         * Provides the content of the download.
+         *
+         * @return The content, it is written to the temporary file while it is read
+         * @throws IllegalStateException If the local copy is up to date
+         */
+        public InputStream getInputStream() {
+            if (body == null) {
+                throw new IllegalStateException("The local copy is up to date.");
+            }
+            return body;
+        }
+
+        /**
+         * Reads the rest of the content and moves the downloaded file into the place of the CSV file.
+         *
+         * @return Whether the download was successful, which is not the case for an empty file
+         * @throws IOException In case of I/O errors
+         */
+        public boolean commit() throws IOException {
+            if (body == null) {
+                return true;
+            }
+            body.transferTo(OutputStream.nullOutputStream());
+            body.closeCopy();
+            if (body.getCopiedBytes() == 0) {
+                return false;
+            }
+            CSVFile.this.commit(temporaryPath);
+            if (httpConnection != null) {
+                rememberValidators(httpConnection);
+            }
+            return true;
+        }
+
+        /**
+         * Closes the connection and discards the temporary file if the download was not committed.
+         *
+         * @throws IOException In case of I/O errors
+         */
+        @Override
+        public void close() throws IOException {
+            if (body == null) {
+                return;
+            }
+            try {
+                body.close();
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        }
+    }
+
+    /**
+     * An input stream that copies everything read from it to an output stream.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        private long copiedBytes;
+
+        private boolean copyClosed;
+
+        private TeeInputStream(final InputStream pInput, final OutputStream pCopy) {
+            super(pInput);
+            copy = pCopy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value >= 0) {
+                copy.write(value);
+                copiedBytes++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] pBuffer, final int pOffset, final int pLength) throws IOException {
+            final int count = super.read(pBuffer, pOffset, pLength);
+            if (count > 0) {
+                copy.write(pBuffer, pOffset, count);
+                copiedBytes += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long pCount) throws IOException {
+            final byte[] buffer = new byte[(int) Math.min(pCount, 8192)];
+            long skipped = 0;
+            while (skipped < pCount) {
+                final int count = read(buffer, 0, (int) Math.min(buffer.length, pCount - skipped));
+                if (count < 0) {
+                    break;
+                }
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(final int pReadLimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        private long getCopiedBytes() {
+            return copiedBytes;
+        }
+
+        private void closeCopy() throws IOException {
+            if (!copyClosed) {
+                copyClosed = true;
+                copy.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                closeCopy();
+            }
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.io.IOException;
+
+/**
+ * Splits the lines of an input into {@link CSVRecord}s.
+ *
+ * <p>A line is terminated by {@code \n}, {@code \r}, or {@code \r\n}, like in {@link
+ * java.io.BufferedReader#readLine()}.
+ */
+interface CSVLineTokenizer {
+
+    /**
+     * Reads the next line into a record.
+     *
+     * @param pRecord The record to overwrite
+     * @return Whether a line was read, {@code false} at the end of the input
+     * @throws IOException In case of I/O errors
+     */
+    boolean next(CSVRecord pRecord) throws IOException;
+
+    /**
+     * Reads the next line as a string.
+     *
+     * @return The line without its terminator, or {@code null} at the end of the input
+     * @throws IOException In case of I/O errors
+     */
+    String nextLine() throws IOException;
+}
@@ -1,27 +1,43 @@
 package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
 
+import com.google.common.base.Preconditions;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.*;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.exception.CSVParserException;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-
-import static de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive.getAdditiveForIndex;
-import static de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen.getAllergenForToken;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * A parser for the CSV files of STWNO.
  */
 public class CSVParser {
 
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024;
+
     private final CSVFile pCSVFile;
     private final DateTimeFormatter pDateTimeFormatter;
+    private final CSVDownloadCoordinator pDownloadCoordinator;
 
     /**
      * Instantiates a new {@code CSVParser} object.
@@ -30,8 +46,22 @@ public class CSVParser {
      * @param pDateTimeFormatter A formatter for dates
      */
     public CSVParser(final CSVFile pCSVFile, final DateTimeFormatter pDateTimeFormatter) {
+        this(pCSVFile, pDateTimeFormatter, new CSVDownloadCoordinator());
+    }
+
+    /**
+     * Instantiates a new {@code CSVParser} object that downloads its file through a shared
+     * coordinator.
+     *
+     * @param pCSVFile             The CSV file object
+     * @param pDateTimeFormatter   A formatter for dates
+     * @param pDownloadCoordinator The coordinator for the downloads into the storage of the file
+     */
+    public CSVParser(final CSVFile pCSVFile, final DateTimeFormatter pDateTimeFormatter,
+                     final CSVDownloadCoordinator pDownloadCoordinator) {
         this.pCSVFile = pCSVFile;
         this.pDateTimeFormatter = pDateTimeFormatter;
+        this.pDownloadCoordinator = pDownloadCoordinator;
     }
 
     /**
@@ -41,79 +71,314 @@ public CSVParser(final CSVFile pCSVFile, final DateTimeFormatter pDateTimeFormat
      * @throws IOException In case of I/O errors
      */
     public List<Dish> parseDishes() throws IOException {
-        if (!pCSVFile.download() || !pCSVFile.exists()) {
-            throw new CSVParserException("File doesn't exist.");
+        List<Dish> dishList = new ArrayList<>();
+        parse(dishList::add);
+        return dishList;
+    }
+
+    /**
+     * Parses the content of the CSV file to a {@link WeekMenu}.
+     *
+     * <p>The menu is indexed by date and {@link DishType} while the rows are parsed.
+     *
+     * @return The menu of the {@link Dish}es in the file
+     * @throws IOException In case of I/O errors
+     */
+    public WeekMenu parseMenu() throws IOException {
+        WeekMenu.Builder builder = new WeekMenu.Builder();
+        parse(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Parses the content of the CSV file to a {@link WeekMenu} and reports the version of the local
+     * copy the menu was parsed from.
+     *
+     * <p>The version can be stored with data derived from the menu, e.g., a {@link WeekSnapshot},
+     * even if another download replaces the file right after the parse.
+     *
+     * @return The menu of the {@link Dish}es in the file and the version they were parsed from
+     * @throws IOException In case of I/O errors
+     * @see #parse(Consumer)
+     */
+    public VersionedMenu parseVersionedMenu() throws IOException {
+        WeekMenu.Builder builder = new WeekMenu.Builder();
+        Outcome outcome = parseVersion(builder::add, null);
+        return new VersionedMenu(builder.build(), outcome.version());
+    }
+
+    /**
+     * Parses the content of the CSV file to a {@link WeekMenu} like {@link #parseVersionedMenu()},
+     * unless the local copy was not replaced and still has the version of a menu parsed before.
+     *
+     * <p>This is the case if the server reports the local copy as not modified. The local copy is
+     * then not read at all, so the menu parsed before can be kept.
+     *
+     * @param pVersion The version of the local copy the current menu was parsed from
+     * @return The new menu and the version it was parsed from, or an empty optional if the local copy
+     *     still has the given version
+     * @throws IOException In case of I/O errors
+     */
+    public Optional<VersionedMenu> parseVersionedMenuIfChanged(final CSVFile.Version pVersion) throws IOException {
+        Preconditions.checkNotNull(pVersion);
+        WeekMenu.Builder builder = new WeekMenu.Builder();
+        Outcome outcome = parseVersion(builder::add, pVersion);
+        if (outcome.unchanged()) {
+            return Optional.empty();
         }
-        try (BufferedReader reader = new BufferedReader(
-                new FileReader(pCSVFile.provideFile(), StandardCharsets.UTF_8))) {
-            CSVReader csvReader = new CSVReader(reader);
-            List<Dish> dishList = new LinkedList<>();
-            for (CSVReader.CSVRow row : csvReader) {
-                dishList.add(
-                        new Dish(getDishtype(row), getName(row), getAdditives(row), getAllergens(row), getTags(row),
-                                getBigDecimal(row, "stud"), getBigDecimal(row, "bed"), getBigDecimal(row, "gast"),
-                                LocalDate.parse(row.get("datum"), pDateTimeFormatter)));
+        return Optional.of(new VersionedMenu(builder.build(), outcome.version()));
+    }
+
+    /**
+     * Parses the content of the CSV file while it is downloaded and passes every {@link Dish} to a
+     * consumer as soon as its row has been read.
+     *
+     * <p>The downloaded content is parsed straight from the connection and written to the storage on
+     * the fly. The new file replaces the local copy only once the whole content has been parsed
+     * successfully, a failing parse keeps the previous copy. If the local copy is up to date or
+     * another download of the same week is already in flight, the local copy is parsed after that
+     * download instead; it is mapped into memory and tokenized on its bytes, see
+     * {@link CSVReader#map(java.nio.file.Path)}.
+     *
+     * <p>If the parse fails, the consumer may already have received some of the {@link Dish}es.
+     *
+     * @param pConsumer The consumer for the parsed {@link Dish}es
+     * @throws IOException In case of I/O errors
+     */
+    public void parse(final Consumer<Dish> pConsumer) throws IOException {
+        parseVersion(pConsumer, null);
+    }
+
+    /**
+     * Parses the CSV file like {@link #parse(Consumer)} and reports the version of the parsed local
+     * copy, or {@code null} if another download replaced the local copy during the parse.
+     *
+     * <p>A streamed download is versioned right after its commit, while the coordinator keeps other
+     * downloads of the week from replacing it. A local copy is versioned before and after it is read;
+     * it is not read at all if it still has the unchanged version.
+     */
+    private Outcome parseVersion(final Consumer<Dish> pConsumer, final CSVFile.Version pUnchanged)
+            throws IOException {
+        try (CSVDownloadCoordinator.Lease lease = pDownloadCoordinator.lease(pCSVFile.getYearWeek())) {
+            final AtomicReference<CSVFile.Version> streamed = new AtomicReference<>();
+            final boolean downloaded = pDownloadCoordinator.download(pCSVFile, () -> {
+                try (CSVFile.Download download = pCSVFile.openDownload()) {
+                    if (download == null) {
+                        return false;
+                    }
+                    if (download.isNotModified()) {
+                        return true;
+                    }
+                    read(new InputStreamReader(download.getInputStream(), StandardCharsets.UTF_8), pConsumer);
+                    if (!download.commit()) {
+                        return false;
+                    }
+                    streamed.set(pCSVFile.readVersion());
+                    return true;
+                }
+            });
+            if (!downloaded || !pCSVFile.exists()) {
+                throw new CSVParserException("File doesn't exist.");
+            }
+            if (streamed.get() != null) {
+                return new Outcome(streamed.get(), false);
             }
-            return dishList;
+            final CSVFile.Version version = pCSVFile.readVersion();
+            if (version.equals(pUnchanged)) {
+                return new Outcome(version, true);
+            }
+            readLocalCopy(pConsumer);
+            return new Outcome(version.equals(pCSVFile.readVersion()) ? version : null, false);
         }
     }
 
-    private BigDecimal getBigDecimal(CSVReader.CSVRow row, String pers) {
-        return new BigDecimal(row.get(pers).replace(",", "."));
+    /**
+     * Provides a publisher that parses the CSV file for every subscription and emits every
+     * {@link Dish} as soon as its row has been read and the subscriber has requested it.
+     *
+     * <p>Unlike {@link #parse(Consumer)}, the file is downloaded completely before it is parsed, so a
+     * slow subscriber never holds up the download of the week for other parses sharing the
+     * coordinator. The parse of the local copy then waits for the demand of the subscriber.
+     * Cancelling the subscription aborts the parse and closes the file. Filters added with
+     * {@link DishPublisher#filter(java.util.function.Predicate)} are applied while parsing, before the
+     * demand is consumed.
+     *
+     * @param pExecutor The executor for the parses
+     * @return A publisher of the {@link Dish}es in the file
+     */
+    public DishPublisher publish(final Executor pExecutor) {
+        return new DishPublisher(this::parseDownloaded, pExecutor);
     }
 
-    private Set<Tag> getTags(CSVReader.CSVRow row) {
-        Set<Tag> tags = new HashSet<>();
-        String[] tagsAsString = row.get("kennz").split(",");
-        for (String tag : tagsAsString) {
-            Optional<Tag> optionalTag = (Tag.getTagForToken(tag));
-            optionalTag.ifPresent(tags::add);
+    /**
+     * Downloads the CSV file completely and parses its local copy afterwards.
+     */
+    private void parseDownloaded(final Consumer<Dish> pConsumer) throws IOException {
+        try (CSVDownloadCoordinator.Lease lease = pDownloadCoordinator.lease(pCSVFile.getYearWeek())) {
+            if (!pDownloadCoordinator.download(pCSVFile) || !pCSVFile.exists()) {
+                throw new CSVParserException("File doesn't exist.");
+            }
+            readLocalCopy(pConsumer);
         }
-        return tags;
-
     }
 
-    private Set<Allergen> getAllergens(CSVReader.CSVRow row) {
-        String allergenString = row.get("name");
-        if (!allergenString.contains("(")) {
-            return Collections.emptySet();
+    /**
+     * Reads the local copy of the CSV file on its mapped bytes, unless it is too large to be mapped
+     * as a whole.
+     */
+    private void readLocalCopy(final Consumer<Dish> pConsumer) throws IOException {
+        final File file = pCSVFile.provideFile();
+        if (file.length() > Integer.MAX_VALUE) {
+            try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+                read(reader, pConsumer);
+            }
+            return;
         }
-        String[] allergies = allergenString.split("\\(")[1].replaceAll("[^A-Z]+", " ").trim().split(" ");
-        Set<Allergen> allergens = new TreeSet<>();
-        for (String ch : allergies) {
-            Optional<Allergen> allergen = getAllergenForToken(ch);
-            allergen.ifPresent(allergens::add);
+        read(CSVReader.map(file.toPath()).records(), pConsumer);
+    }
+
+    /**
+     * Parses the content of the CSV file to a list of {@link Dish}es on all available cores.
+     *
+     * @return A list of {@link Dish}es in the order of the file
+     * @throws IOException In case of I/O errors
+     * @see #parseDishesParallel(int)
+     */
+    public List<Dish> parseDishesParallel() throws IOException {
+        return parseDishesParallel(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parses the content of the CSV file to a list of {@link Dish}es in parallel.
+     *
+     * <p>The file is downloaded completely first. Then it is split into line-aligned chunks, which are
+     * memory-mapped and parsed concurrently on their bytes against the schema of the header of the
+     * file. The results of the chunks are concatenated in the order of the file, so the result equals
+     * the one of {@link #parseDishes()}. This pays off for large files, e.g., bulk exports of several
+     * months.
+     *
+     * @param pParallelism The maximum number of chunks parsed at the same time
+     * @return A list of {@link Dish}es in the order of the file
+     * @throws IOException              In case of I/O errors
+     * @throws IllegalArgumentException If the parallelism is not positive
+     */
+    public List<Dish> parseDishesParallel(final int pParallelism) throws IOException {
+        Preconditions.checkArgument(pParallelism > 0, "Parallelism must be positive.");
+        try (CSVDownloadCoordinator.Lease lease = pDownloadCoordinator.lease(pCSVFile.getYearWeek())) {
+            if (!pDownloadCoordinator.download(pCSVFile) || !pCSVFile.exists()) {
+                throw new CSVParserException("File doesn't exist.");
+            }
+            try (FileChannel channel = FileChannel.open(pCSVFile.provideFile().toPath(), StandardOpenOption.READ)) {
+                return parseChunks(channel, pParallelism);
+            }
         }
-        return allergens;
     }
 
-    private Set<Additive> getAdditives(CSVReader.CSVRow row) {
-        String additiveString = row.get("name");
-        if (!additiveString.contains("(")) {
-            return Collections.emptySet();
+    private List<Dish> parseChunks(final FileChannel pChannel, final int pParallelism) throws IOException {
+        final long size = pChannel.size();
+        final long headerEnd = nextLineStart(pChannel, 0, size);
+        final ByteBuffer headerBytes = ByteBuffer.allocate((int) Math.min(headerEnd, Integer.MAX_VALUE));
+        pChannel.read(headerBytes, 0);
+        final List<String> fieldNames = new CSVReader(new BufferedReader(new StringReader(
+                StandardCharsets.UTF_8.decode(headerBytes.flip()).toString()))).getFieldNames();
+        if (fieldNames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final CSVSchema schema = new CSVSchema(fieldNames);
+
+        final long chunkCount = Math.max(pParallelism, (size - headerEnd + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        final List<Callable<List<Dish>>> chunks = new ArrayList<>();
+        long start = headerEnd;
+        for (long i = 1; start < size; i++) {
+            final long target = headerEnd + (size - headerEnd) * i / chunkCount;
+            final long end = i == chunkCount ? size : nextLineStart(pChannel, Math.max(start, target), size);
+            final long chunkStart = start;
+            chunks.add(() -> parseChunk(pChannel, chunkStart, end, schema));
+            start = end;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(pParallelism);
+        try {
+            final List<Dish> dishes = new ArrayList<>();
+            for (Future<List<Dish>> chunk : pool.invokeAll(chunks)) {
+                dishes.addAll(chunk.get());
+            }
+            return dishes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
-        String[] additives = additiveString.split("\\(")[1].replaceAll("\\D+", " ").trim().split(" ");
-        Set<Additive> addis = new TreeSet<>();
-        for (String digit : additives) {
-            if (!digit.isEmpty()) {
-                Optional<Additive> allergen = getAdditiveForIndex(Integer.parseInt(digit));
-                allergen.ifPresent(addis::add);
+    }
+
+    private List<Dish> parseChunk(final FileChannel pChannel, final long pStart, final long pEnd,
+                                  final CSVSchema pSchema) throws IOException {
+        final MappedByteBuffer chunk = pChannel.map(FileChannel.MapMode.READ_ONLY, pStart, pEnd - pStart);
+        final List<Dish> dishes = new ArrayList<>();
+        read(new CSVReader(chunk).records(pSchema), dishes::add);
+        return dishes;
+    }
+
+    /**
+     * Finds the start of the line after the one containing {@code pPosition}.
+     *
+     * <p>Lines are split after a line feed; as a line feed never occurs within a multibyte UTF-8
+     * sequence, the chunks can be tokenized independently.
+     */
+    private static long nextLineStart(final FileChannel pChannel, final long pPosition, final long pSize)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = pPosition;
+        while (position < pSize) {
+            buffer.clear();
+            final int read = pChannel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
             }
+            position += read;
         }
-        return addis;
+        return pSize;
     }
 
-    private String getName(CSVReader.CSVRow row) {
-        String name = row.get("name");
-        if (!name.contains("(")) {
-            return name.trim();
-        } else {
-            return row.get("name").split("\\(")[0].trim();
+    /**
+     * Reads the rows of a CSV file, the reader is not closed.
+     */
+    private void read(final Reader pReader, final Consumer<Dish> pConsumer) throws IOException {
+        read(new CSVReader(new BufferedReader(pReader)).records(), pConsumer);
+    }
+
+    private void read(final Iterator<CSVRecord> records, final Consumer<Dish> pConsumer) {
+        final DateCache dates = new DateCache(pDateTimeFormatter);
+        Columns columns = null;
+        while (records.hasNext()) {
+            CSVRecord record = records.next();
+            if (columns == null) {
+                columns = Columns.compile(record.getSchema());
+            }
+            DishNameDecoder.DecodedName name = DishNameDecoder.decode(record.get(columns.name()));
+            pConsumer.accept(new Dish(getDishtype(record, columns), name.name(), name.additives(),
+                    name.allergens(), DishNameDecoder.decodeTags(record.get(columns.kennz())),
+                    Price.parseCents(record.get(columns.stud())), Price.parseCents(record.get(columns.bed())),
+                    Price.parseCents(record.get(columns.gast())),
+                    dates.parse(record.get(columns.datum()))));
         }
     }
 
-    private DishType getDishtype(CSVReader.CSVRow row) {
-        char firstChar = row.get("warengruppe").charAt(0);
+    private DishType getDishtype(CSVRecord record, Columns columns) {
+        char firstChar = record.charAt(columns.warengruppe(), 0);
         return switch (firstChar) {
             case 'H' -> DishType.MAIN;
             case 'S' -> DishType.APPETISER;
@@ -122,4 +387,69 @@ private DishType getDishtype(CSVReader.CSVRow row) {
             default -> null;
         };
     }
+
+    /**
+     * Parses the dates of consecutive rows, which are mostly equal, only once.
+     *
+     * <p>A date that equals the previous one is compared character by character and reused without
+     * running the formatter.
+     */
+    private static final class DateCache {
+
+        private final DateTimeFormatter formatter;
+
+        private String lastText;
+
+        private LocalDate lastDate;
+
+        private DateCache(final DateTimeFormatter pFormatter) {
+            formatter = pFormatter;
+        }
+
+        private LocalDate parse(final CharSequence pText) {
+            if (lastText == null || !lastText.contentEquals(pText)) {
+                lastDate = LocalDate.parse(pText, formatter);
+                lastText = pText.toString();
+            }
+            return lastDate;
+        }
+    }
+
+    /**
+     * The column indices of the fields of the STWNO's CSV files, resolved once per file.
+     */
+    private record Columns(int warengruppe, int name, int kennz, int stud, int bed, int gast, int datum) {
+
+        private static Columns compile(final CSVSchema pSchema) {
+            return new Columns(indexOf(pSchema, "warengruppe"), indexOf(pSchema, "name"),
+                    indexOf(pSchema, "kennz"), indexOf(pSchema, "stud"), indexOf(pSchema, "bed"),
+                    indexOf(pSchema, "gast"), indexOf(pSchema, "datum"));
+        }
+
+        private static int indexOf(final CSVSchema pSchema, final String pFieldName) {
+            final int index = pSchema.indexOf(pFieldName);
+            if (index < 0) {
+                throw new CSVParserException(String.format("Missing column %s.", pFieldName));
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The version of the local copy a parse has read, and whether the parse was skipped because it
+     * was unchanged.
+     */
+    private record Outcome(CSVFile.Version version, boolean unchanged) {
+    }
+
+    /**
+     * A {@link WeekMenu} together with the version of the local copy of the CSV file it was parsed
+     * from.
+     *
+     * @param menu    The parsed menu
+     * @param version The version of the parsed local copy, or {@code null} if another download
+     *                replaced the local copy during the parse
+     */
+    public record VersionedMenu(WeekMenu menu, CSVFile.Version version) {
+    }
 }
@@ -1,21 +1,34 @@
 package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVReader.CSVRow;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * A reader for CSV files.
  *
  * <p>This reader will work on any kind of input that can be represented by a {@link
  * BufferedReader}. It expects that the first line of the CSV file contains the field names.
+ *
+ * <p>Alternatively, the reader works on UTF-8 encoded bytes, e.g., a file mapped into memory by
+ * {@link #map(Path)}. The bytes are tokenized in place and values are only decoded if they contain
+ * non-ASCII characters, see {@link CSVRecord}.
  */
 public class CSVReader implements Iterable<CSVRow> {
 
     private final BufferedReader pReader;
+    private final ByteBuffer pBytes;
     private final CharSequence pDelimiter;
 
     /**
@@ -39,15 +52,63 @@ public CSVReader(final BufferedReader pReader) {
      */
     public CSVReader(final BufferedReader pReader, final CharSequence pDelimiter) {
         this.pReader = pReader;
+        this.pBytes = null;
+        this.pDelimiter = pDelimiter;
+    }
+
+    /**
+     * Initialises a {@code CSVReader} using UTF-8 encoded bytes as its input source.
+     *
+     * <p>The input consists of the bytes between the position and the limit of the buffer; neither
+     * is changed by the reader. This sets the default delimiter character to {@code ;}.
+     *
+     * @param pBytes The input source
+     */
+    public CSVReader(final ByteBuffer pBytes) {
+        this(pBytes, ";");
+    }
+
+    /**
+     * Initialises a {@code CSVReader} using UTF-8 encoded bytes as its input source.
+     *
+     * <p>The input consists of the bytes between the position and the limit of the buffer; neither
+     * is changed by the reader. This allows to set the delimiter character to {@code pDelimiter}.
+     *
+     * @param pBytes     The input source
+     * @param pDelimiter The delimiter character
+     */
+    public CSVReader(final ByteBuffer pBytes, final CharSequence pDelimiter) {
+        this.pReader = null;
+        this.pBytes = pBytes;
         this.pDelimiter = pDelimiter;
     }
 
+    /**
+     * Maps a UTF-8 encoded file into memory and initialises a {@code CSVReader} on its bytes.
+     *
+     * <p>The mapping stays valid after the file was closed, moved, or replaced; it is released when it
+     * is no longer referenced. This sets the default delimiter character to {@code ;}.
+     *
+     * @param pFile The file to read, must be smaller than 2 GiB
+     * @return The reader of the mapped file
+     * @throws IOException In case the file cannot be mapped
+     */
+    public static CSVReader map(final Path pFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+            return new CSVReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
     /**
      * Provides the field names from the CSV file.
      *
      * @return The field names from the CSV file
      */
     public List<String> getFieldNames() {
+        if (pBytes != null) {
+            final String header = new CSVByteTokenizer(pBytes, pDelimiter.toString()).nextLine();
+            return header == null ? Collections.emptyList() : splitHeader(header);
+        }
         int bufferSize = 1000;
         String firstRow;
         try {
@@ -64,37 +125,108 @@ public List<String> getFieldNames() {
         } catch (IOException e) {
             return Collections.emptyList();
         }
-        return List.of(firstRow.trim().split(String.valueOf(pDelimiter)));
+        return splitHeader(firstRow);
+    }
+
+    private List<String> splitHeader(final String pHeader) {
+        return List.of(pHeader.trim().split(Pattern.quote(pDelimiter.toString())));
     }
 
+    /**
+     * Provides an iterator over the data rows of the CSV file.
+     *
+     * <p>The iterator is lazy: the header is read once when the iterator is created, every further
+     * line is only read and split when the next row is requested. Only one row is held in memory at a
+     * time, so the input may be arbitrarily large. I/O errors while iterating are thrown as {@link
+     * UncheckedIOException}s.
+     *
+     * @return An iterator over the data rows
+     */
     @Override
     public Iterator<CSVRow> iterator() {
-        List<CSVRow> csvRows = new LinkedList<>();
-        List<String> headerList = getFieldNames();
-        List<String> lineList = pReader.lines().toList();
-        if (lineList.isEmpty()) {
+        final Iterator<CSVRecord> records = records();
+        if (!records.hasNext()) {
             return Collections.emptyIterator();
         }
-        for (String s : lineList.subList(1, lineList.size())) {
-            HashMap<String, String> rowMap = new HashMap<>();
-            String[] splitRow = s.split(";");
-            for (int i = 0; i < splitRow.length; i++) {
-                rowMap.put(headerList.get(i), splitRow[i]);
-            }
-            csvRows.add(new CSVRow(rowMap));
+        return Iterators.transform(records, CSVRecord::toRow);
+    }
+
+    /**
+     * Provides an iterator over the data rows of the CSV file as {@link CSVRecord}s.
+     *
+     * <p>The header is compiled into a {@link CSVSchema} once. Every call to {@link Iterator#next()}
+     * returns the same record, overwritten with the next row, so iterating allocates no objects per
+     * row. A record must not be used after the next one has been requested. I/O errors while iterating
+     * are thrown as {@link UncheckedIOException}s.
+     *
+     * @return An iterator over the reused record of the data rows
+     */
+    public Iterator<CSVRecord> records() {
+        final CSVLineTokenizer tokenizer = newTokenizer();
+        final String header;
+        try {
+            header = tokenizer.nextLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (header == null) {
+            return Collections.emptyIterator();
+        }
+        return records(tokenizer, new CSVSchema(splitHeader(header)));
+    }
+
+    /**
+     * Provides an iterator over the rows of an input without a header line as {@link CSVRecord}s.
+     *
+     * <p>This allows reading a part of a larger CSV file, e.g., a chunk that starts in the middle of
+     * the file, against the schema of the header of that file. The iterator behaves like the one of
+     * {@link #records()}.
+     *
+     * @param pSchema The schema of the rows
+     * @return An iterator over the reused record of the rows
+     */
+    public Iterator<CSVRecord> records(final CSVSchema pSchema) {
+        return records(newTokenizer(), pSchema);
+    }
+
+    private CSVLineTokenizer newTokenizer() {
+        if (pBytes != null) {
+            return new CSVByteTokenizer(pBytes, pDelimiter.toString());
         }
-        return csvRows.iterator();
+        return new CSVTokenizer(pReader, pDelimiter.toString());
+    }
+
+    private static Iterator<CSVRecord> records(final CSVLineTokenizer pTokenizer, final CSVSchema pSchema) {
+        final CSVRecord record = new CSVRecord(pSchema);
+        return new AbstractIterator<>() {
+            @Override
+            protected CSVRecord computeNext() {
+                try {
+                    return pTokenizer.next(record) ? record : endOfData();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
     }
 
     /**
      * Represents one data row of the CSV data.
+     *
+     * <p>This is a compatibility view that copies the values of a {@link CSVRecord}. The entry map is
+     * only built if it is requested.
      */
     public static class CSVRow {
 
-        private final Map<String, String> entryMap;
+        private final CSVSchema schema;
 
-        private CSVRow(final Map<String, String> pEntryMap) {
-            entryMap = ImmutableMap.copyOf(pEntryMap);
+        private final String[] values;
+
+        private Map<String, String> entryMap;
+
+        CSVRow(final CSVSchema pSchema, final String[] pValues) {
+            schema = pSchema;
+            values = pValues;
         }
 
         /**
@@ -106,7 +238,8 @@ private CSVRow(final Map<String, String> pEntryMap) {
          * no mapping for the key
          */
         public String get(final String pKey) {
-            return entryMap.get(pKey);
+            final int index = schema.indexOf(pKey);
+            return index >= 0 && index < values.length ? values[index] : null;
         }
 
         /**
@@ -117,6 +250,13 @@ public String get(final String pKey) {
          * @return The entry map of the row
          */
         public Map<String, String> getEntryMap() {
+            if (entryMap == null) {
+                final Map<String, String> rowMap = new HashMap<>();
+                for (int i = 0; i < values.length; i++) {
+                    rowMap.put(schema.getFieldNames().get(i), values[i]);
+                }
+                entryMap = ImmutableMap.copyOf(rowMap);
+            }
             return entryMap;
         }
     }
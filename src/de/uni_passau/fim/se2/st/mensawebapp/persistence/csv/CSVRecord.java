@@ -0,0 +1,294 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * One data row of a CSV file, backed by offsets into a reusable character buffer or into UTF-8
+ * encoded bytes.
+ *
+ * <p>A {@code CSVRecord} is a flyweight: the reader that provides it overwrites its content when the
+ * next row is read. The {@link CharSequence}s it returns are views of the buffer and share that
+ * lifetime; use {@link #getString(int)} or {@link #toRow()} to keep a value.
+ *
+ * <p>A record backed by bytes only decodes a value when it contains non-ASCII characters, all other
+ * values are returned as views of the bytes. Its {@link #length(int)} and {@link #charAt(int, int)}
+ * work on the bytes directly and thus count bytes; for ASCII values, e.g., numbers and dates, they
+ * equal the characters.
+ *
+ * <p>The number of values of a row follows {@link String#split(String)}: trailing empty values are
+ * not counted.
+ */
+public final class CSVRecord {
+
+    private final CSVSchema schema;
+
+    private char[] buffer;
+
+    private ByteBuffer bytes;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private int size;
+
+    CSVRecord(final CSVSchema pSchema) {
+        schema = pSchema;
+    }
+
+    /**
+     * Splits a line of the buffer into values.
+     *
+     * @param pBuffer    The buffer that holds the line
+     * @param pStart     The offset of the first character of the line
+     * @param pEnd       The offset after the last character of the line
+     * @param pDelimiter The delimiter between the values
+     */
+    void reset(final char[] pBuffer, final int pStart, final int pEnd, final String pDelimiter) {
+        buffer = pBuffer;
+        bytes = null;
+        final char first = pDelimiter.charAt(0);
+        final int delimiterLength = pDelimiter.length();
+        int count = 0;
+        int valueStart = pStart;
+        for (int i = pStart; i <= pEnd - delimiterLength; i++) {
+            if (pBuffer[i] == first && matches(pBuffer, i, pDelimiter)) {
+                add(count++, valueStart, i);
+                valueStart = i + delimiterLength;
+                i = valueStart - 1;
+            }
+        }
+        add(count++, valueStart, pEnd);
+        if (count > 1) {
+            while (count > 0 && starts[count - 1] == ends[count - 1]) {
+                count--;
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Splits a line of UTF-8 encoded bytes into values.
+     *
+     * <p>The bytes are accessed by absolute offsets, the position of the buffer is ignored.
+     *
+     * @param pBytes     The bytes that hold the line
+     * @param pStart     The offset of the first byte of the line
+     * @param pEnd       The offset after the last byte of the line
+     * @param pDelimiter The UTF-8 encoded delimiter between the values
+     */
+    void reset(final ByteBuffer pBytes, final int pStart, final int pEnd, final byte[] pDelimiter) {
+        buffer = null;
+        bytes = pBytes;
+        final byte first = pDelimiter[0];
+        int count = 0;
+        int valueStart = pStart;
+        for (int i = pStart; i <= pEnd - pDelimiter.length; i++) {
+            if (pBytes.get(i) == first && matches(pBytes, i, pDelimiter)) {
+                add(count++, valueStart, i);
+                valueStart = i + pDelimiter.length;
+                i = valueStart - 1;
+            }
+        }
+        add(count++, valueStart, pEnd);
+        if (count > 1) {
+            while (count > 0 && starts[count - 1] == ends[count - 1]) {
+                count--;
+            }
+        }
+        size = count;
+    }
+
+    private static boolean matches(final ByteBuffer pBytes, final int pOffset, final byte[] pDelimiter) {
+        for (int i = 1; i < pDelimiter.length; i++) {
+            if (pBytes.get(pOffset + i) != pDelimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(final char[] pBuffer, final int pOffset, final String pDelimiter) {
+        for (int i = 1; i < pDelimiter.length(); i++) {
+            if (pBuffer[pOffset + i] != pDelimiter.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(final int pIndex, final int pStart, final int pEnd) {
+        if (pIndex == starts.length) {
+            starts = Arrays.copyOf(starts, pIndex * 2);
+            ends = Arrays.copyOf(ends, pIndex * 2);
+        }
+        starts[pIndex] = pStart;
+        ends[pIndex] = pEnd;
+    }
+
+    /**
+     * Provides the compiled header of the file this row belongs to.
+     *
+     * @return The schema of the file
+     */
+    public CSVSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Provides the number of values of the row.
+     *
+     * @return The number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Provides the value of a column as a view of the buffer.
+     *
+     * <p>The value of a record backed by bytes is only decoded if it contains non-ASCII characters.
+     *
+     * @param pColumn The column index
+     * @return The value, or {@code null} if the row has no value for the column
+     */
+    public CharSequence get(final int pColumn) {
+        if (pColumn < 0 || pColumn >= size) {
+            return null;
+        }
+        if (bytes != null) {
+            return isAscii(pColumn) ? new AsciiView(bytes, starts[pColumn], ends[pColumn] - starts[pColumn])
+                    : decode(pColumn);
+        }
+        return CharBuffer.wrap(buffer, starts[pColumn], ends[pColumn] - starts[pColumn]);
+    }
+
+    /**
+     * Provides the value of a field as a view of the buffer.
+     *
+     * @param pFieldName The field name
+     * @return The value, or {@code null} if the row has no value for the field
+     */
+    public CharSequence get(final String pFieldName) {
+        return get(schema.indexOf(pFieldName));
+    }
+
+    /**
+     * Provides a copy of the value of a column.
+     *
+     * @param pColumn The column index
+     * @return The value, or {@code null} if the row has no value for the column
+     */
+    public String getString(final int pColumn) {
+        if (pColumn < 0 || pColumn >= size) {
+            return null;
+        }
+        if (bytes != null) {
+            return decode(pColumn);
+        }
+        return new String(buffer, starts[pColumn], ends[pColumn] - starts[pColumn]);
+    }
+
+    private boolean isAscii(final int pColumn) {
+        for (int i = starts[pColumn]; i < ends[pColumn]; i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(final int pColumn) {
+        final byte[] value = new byte[ends[pColumn] - starts[pColumn]];
+        bytes.get(starts[pColumn], value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Provides the length of the value of a column without creating a view of it.
+     *
+     * @param pColumn The column index, must be less than {@link #size()}
+     * @return The number of characters of the value, or of bytes for a record backed by bytes
+     * @throws IndexOutOfBoundsException In case the row has no value for the column
+     */
+    public int length(final int pColumn) {
+        Objects.checkIndex(pColumn, size);
+        return ends[pColumn] - starts[pColumn];
+    }
+
+    /**
+     * Provides a character of the value of a column without creating a view of it.
+     *
+     * @param pColumn The column index, must be less than {@link #size()}
+     * @param pIndex  The index of the character within the value
+     * @return The character, or the byte as a character for a record backed by bytes
+     * @throws IndexOutOfBoundsException In case the row has no value for the column or the value is
+     *                                   too short
+     */
+    public char charAt(final int pColumn, final int pIndex) {
+        Objects.checkIndex(pIndex, length(pColumn));
+        if (bytes != null) {
+            return (char) (bytes.get(starts[pColumn] + pIndex) & 0xFF);
+        }
+        return buffer[starts[pColumn] + pIndex];
+    }
+
+    /**
+     * Copies the row into a {@link CSVReader.CSVRow} that stays valid after the next row was read.
+     *
+     * @return A copy of this row
+     */
+    public CSVReader.CSVRow toRow() {
+        final String[] values = new String[Math.min(size, schema.size())];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getString(i);
+        }
+        return new CSVReader.CSVRow(schema, values);
+    }
+
+    /**
+     * A view of ASCII encoded bytes as characters, which avoids decoding them.
+     */
+    private static final class AsciiView implements CharSequence {
+
+        private final ByteBuffer bytes;
+
+        private final int offset;
+
+        private final int length;
+
+        private AsciiView(final ByteBuffer pBytes, final int pOffset, final int pLength) {
+            bytes = pBytes;
+            offset = pOffset;
+            length = pLength;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int pIndex) {
+            Objects.checkIndex(pIndex, length);
+            return (char) bytes.get(offset + pIndex);
+        }
+
+        @Override
+        public CharSequence subSequence(final int pStart, final int pEnd) {
+            Objects.checkFromToIndex(pStart, pEnd, length);
+            return new AsciiView(bytes, offset + pStart, pEnd - pStart);
+        }
+
+        @Override
+        public String toString() {
+            final byte[] value = new byte[length];
+            bytes.get(offset, value);
+            return new String(value, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled header of a CSV file.
+ *
+ * <p>A schema resolves the field names of the header to column indices once per file, so that rows
+ * can be accessed by index instead of looking up every value by its field name.
+ */
+public final class CSVSchema {
+
+    private final List<String> fieldNames;
+
+    private final Map<String, Integer> indices;
+
+    /**
+     * Compiles a schema from the field names of a header.
+     *
+     * <p>If a field name occurs more than once, it resolves to its first column.
+     *
+     * @param pFieldNames The field names in the order of the columns
+     */
+    public CSVSchema(final List<String> pFieldNames) {
+        fieldNames = ImmutableList.copyOf(pFieldNames);
+        final Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            columns.putIfAbsent(fieldNames.get(i), i);
+        }
+        indices = ImmutableMap.copyOf(columns);
+    }
+
+    /**
+     * Provides the field names of the header.
+     *
+     * @return The field names in the order of the columns
+     */
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Provides the number of columns of the header.
+     *
+     * @return The number of columns
+     */
+    public int size() {
+        return fieldNames.size();
+    }
+
+    /**
+     * Resolves a field name to its column index.
+     *
+     * @param pFieldName The field name
+     * @return The column index of the field, or {@code -1} if the header has no such field
+     */
+    public int indexOf(final String pFieldName) {
+        final Integer index = indices.get(pFieldName);
+        return index == null ? -1 : index;
+    }
+}
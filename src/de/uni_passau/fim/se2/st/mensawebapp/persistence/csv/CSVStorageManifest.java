@@ -0,0 +1,431 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.google.common.collect.AbstractIterator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps track of the {@link CSVFile}s in a storage directory.
+ *
+ * <p>The manifest knows the size, the time of the download, and the time of the last access of the
+ * file of every week, as well as its {@link CSVValidators}. On creation it recovers its state from
+ * the directory; temporary files of unfinished downloads are ignored. The validators are persisted
+ * in a {@value #MANIFEST_FILE_NAME} file in the directory and are only recovered for the same
+ * download source, so that a restarted application can revalidate its files instead of
+ * downloading them again.
+ *
+ * <p>Based on the manifest, old files and the least recently used files beyond a disk budget can be
+ * selected for eviction.
+ */
+public class CSVStorageManifest implements CSVValidatorStore {
+
+    /**
+     * The name of the file the validators are persisted to.
+     */
+    public static final String MANIFEST_FILE_NAME = "manifest.properties";
+
+    /**
+     * The resolution of the access times recorded for files served from memory, in milliseconds.
+     */
+    public static final long ACCESS_RESOLUTION_MILLIS = 60_000L;
+
+    private static final Pattern CSV_FILE_NAME = Pattern.compile("(\\d{1,9})-(\\d{1,2})\\.csv");
+
+    private static final String SOURCE_KEY = "source";
+
+    private final Path storagePath;
+
+    private final String source;
+
+    private final ConcurrentMap<YearWeek, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new manifest and recovers its state from the storage directory.
+     *
+     * @param pStoragePath The directory the CSV files are stored in
+     * @param pSource      The base URI the CSV files are downloaded from
+     */
+    public CSVStorageManifest(final Path pStoragePath, final URI pSource) {
+        storagePath = pStoragePath;
+        source = pSource.toString();
+        recover();
+    }
+
+    /**
+     * Updates the entry of a week after its file was downloaded or read.
+     *
+     * <p>The size and download time are read from the storage and the access time is set to now. If
+     * the file does not exist, the entry is removed.
+     *
+     * @param pYearWeek The week of the file
+     */
+    public void touch(final YearWeek pYearWeek) {
+        final long now = System.currentTimeMillis();
+        entries.compute(pYearWeek, (yearWeek, entry) -> {
+            final Entry read = readEntry(yearWeek, now);
+            if (read == null) {
+                return null;
+            }
+            return entry == null ? read : read.withValidators(entry.validators());
+        });
+    }
+
+    /**
+     * Records an access of the file of a week that was served from memory, so that the evictions for
+     * the disk budget see the week as recently used.
+     *
+     * <p>The access time has a resolution of {@link #ACCESS_RESOLUTION_MILLIS}; accesses within that
+     * time after the recorded one only cost a lookup. Unknown weeks are ignored.
+     *
+     * @param pYearWeek The week of the file
+     */
+    public void recordAccess(final YearWeek pYearWeek) {
+        final Entry entry = entries.get(pYearWeek);
+        final long now = System.currentTimeMillis();
+        if (entry == null || now - entry.lastAccess() < ACCESS_RESOLUTION_MILLIS) {
+            return;
+        }
+        entries.computeIfPresent(pYearWeek, (yearWeek, current) ->
+                current.lastAccess() < now ? current.withLastAccess(now) : current);
+    }
+
+    /**
+     * Adds the entry of a week whose file was found in the storage, unless the week is known already.
+     *
+     * <p>As nothing is known about the accesses of such a file, its download counts as its last
+     * access.
+     *
+     * @param pYearWeek The week of the file
+     */
+    public void register(final YearWeek pYearWeek) {
+        entries.computeIfAbsent(pYearWeek, yearWeek -> {
+            final Entry entry = readEntry(yearWeek, 0);
+            return entry == null ? null : entry.withLastAccess(entry.lastModified());
+        });
+    }
+
+    /**
+     * Checks whether the storage contains the file of a week according to the manifest.
+     *
+     * @param pYearWeek The week of the file
+     * @return Whether the week has an entry
+     */
+    public boolean contains(final YearWeek pYearWeek) {
+        return entries.containsKey(pYearWeek);
+    }
+
+    /**
+     * Provides the entry of a week.
+     *
+     * @param pYearWeek The week of the file
+     * @return The entry if the storage contains the file of the week
+     */
+    public Optional<Entry> getEntry(final YearWeek pYearWeek) {
+        return Optional.ofNullable(entries.get(pYearWeek));
+    }
+
+    /**
+     * Extracts the week from the name of a CSV file in the storage.
+     *
+     * @param pFile The path of the file
+     * @return The week, or an empty optional if the file is no CSV file of a valid week
+     */
+    public static Optional<YearWeek> parseYearWeek(final Path pFile) {
+        final Matcher matcher = CSV_FILE_NAME.matcher(pFile.getFileName().toString());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new YearWeek(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+        } catch (IllegalStateException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Removes the entry of a week after its file was deleted.
+     *
+     * @param pYearWeek The week of the file
+     */
+    public void forget(final YearWeek pYearWeek) {
+        final Entry removed = entries.remove(pYearWeek);
+        if (removed != null && removed.validators() != null) {
+            save();
+        }
+    }
+
+    /**
+     * Provides the entries of all files in the storage.
+     *
+     * @return A snapshot of the entries, ordered by week
+     */
+    public List<Entry> getEntries() {
+        final List<Entry> snapshot = new ArrayList<>(entries.values());
+        snapshot.sort(Comparator.comparing(Entry::yearWeek));
+        return snapshot;
+    }
+
+    /**
+     * Provides the total size of all files in the storage.
+     *
+     * @return The total size in bytes
+     */
+    public long getTotalSize() {
+        return entries.values().stream().mapToLong(Entry::size).sum();
+    }
+
+    /**
+     * Selects the files that should be evicted from the storage.
+     *
+     * <p>First, all files that were downloaded more than {@code pMaxAgeSeconds} seconds ago are
+     * selected. Then, the least recently accessed remaining files are selected until the total size
+     * of the rest fits into {@code pMaxBytes}. Entries of files that no longer exist are dropped.
+     *
+     * @param pMaxAgeSeconds The maximum age of a file in seconds
+     * @param pMaxBytes      The disk budget in bytes
+     * @return The weeks of the selected files, old files first, then in order of their last access
+     */
+    public List<YearWeek> selectEvictions(final long pMaxAgeSeconds, final long pMaxBytes) {
+        final long now = System.currentTimeMillis();
+        final List<YearWeek> evictions = new ArrayList<>();
+        final List<Entry> remaining = new ArrayList<>();
+        long remainingSize = 0;
+        for (Entry entry : entries.values()) {
+            if (!exists(entry)) {
+                continue;
+            }
+            if (now - entry.lastModified() > pMaxAgeSeconds * 1000) {
+                evictions.add(entry.yearWeek());
+            } else {
+                remaining.add(entry);
+                remainingSize += entry.size();
+            }
+        }
+        remaining.sort(Comparator.comparingLong(Entry::lastAccess));
+        for (Entry entry : remaining) {
+            if (remainingSize <= pMaxBytes) {
+                break;
+            }
+            evictions.add(entry.yearWeek());
+            remainingSize -= entry.size();
+        }
+        return evictions;
+    }
+
+    /**
+     * Plans the evictions like {@link #selectEvictions(long, long)}, but without touching the storage
+     * up front, so that the plan can be worked off in batches.
+     *
+     * <p>The plan is made from the entries in memory. Whether a file still exists is only checked
+     * when the iterator reaches it; the entry of a vanished file is dropped then. Until then its size
+     * counts against the disk budget, so the plan may select one file more than
+     * {@link #selectEvictions(long, long)} if files vanish behind the back of the manifest.
+     *
+     * @param pMaxAgeSeconds The maximum age of a file in seconds
+     * @param pMaxBytes      The disk budget in bytes
+     * @return An iterator over the weeks of the selected files, old files first, then in order of
+     *     their last access
+     */
+    public Iterator<YearWeek> planEvictions(final long pMaxAgeSeconds, final long pMaxBytes) {
+        final long now = System.currentTimeMillis();
+        final List<Entry> old = new ArrayList<>();
+        final List<Entry> remaining = new ArrayList<>();
+        long remainingSize = 0;
+        for (Entry entry : entries.values()) {
+            if (now - entry.lastModified() > pMaxAgeSeconds * 1000) {
+                old.add(entry);
+            } else {
+                remaining.add(entry);
+                remainingSize += entry.size();
+            }
+        }
+        remaining.sort(Comparator.comparingLong(Entry::lastAccess));
+        final Iterator<Entry> oldEntries = old.iterator();
+        final Iterator<Entry> leastRecentlyUsed = remaining.iterator();
+        final long initialSize = remainingSize;
+        return new AbstractIterator<>() {
+
+            private long remainingSize = initialSize;
+
+            @Override
+            protected YearWeek computeNext() {
+                while (oldEntries.hasNext()) {
+                    final Entry entry = oldEntries.next();
+                    if (exists(entry)) {
+                        return entry.yearWeek();
+                    }
+                }
+                while (remainingSize > pMaxBytes && leastRecentlyUsed.hasNext()) {
+                    final Entry entry = leastRecentlyUsed.next();
+                    remainingSize -= entry.size();
+                    if (exists(entry)) {
+                        return entry.yearWeek();
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Checks whether the file of an entry still exists, and drops the entry if it does not.
+     */
+    private boolean exists(final Entry pEntry) {
+        if (Files.exists(csvPath(pEntry.yearWeek()))) {
+            return true;
+        }
+        entries.remove(pEntry.yearWeek(), pEntry);
+        return false;
+    }
+
+    @Override
+    public Optional<CSVValidators> get(final YearWeek pYearWeek) {
+        return Optional.ofNullable(entries.get(pYearWeek)).map(Entry::validators);
+    }
+
+    @Override
+    public void put(final YearWeek pYearWeek, final CSVValidators pValidators) {
+        final long now = System.currentTimeMillis();
+        entries.compute(pYearWeek, (yearWeek, entry) -> {
+            final Entry current = entry == null ? readEntry(yearWeek, now) : entry;
+            return current == null ? null : current.withValidators(pValidators);
+        });
+        save();
+    }
+
+    @Override
+    public void remove(final YearWeek pYearWeek) {
+        final Entry previous = entries.computeIfPresent(pYearWeek, (yearWeek, entry) -> entry.withValidators(null));
+        if (previous != null) {
+            save();
+        }
+    }
+
+    private void recover() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storagePath, "*.csv")) {
+            for (Path file : files) {
+                parseYearWeek(file).ifPresent(this::register);
+            }
+        } catch (IOException e) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(storagePath.resolve(MANIFEST_FILE_NAME), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        if (!source.equals(properties.getProperty(SOURCE_KEY))) {
+            return;
+        }
+        entries.replaceAll((yearWeek, entry) -> {
+            final CSVValidators validators = new CSVValidators(properties.getProperty(yearWeek + ".etag"),
+                    properties.getProperty(yearWeek + ".lastModified"));
+            return validators.isEmpty() ? entry : entry.withValidators(validators);
+        });
+    }
+
+    /**
+     * Writes the validators of all entries to the manifest file, or deletes the file if there are
+     * none.
+     *
+     * <p>The validators only save bandwidth, so a failing write is ignored.
+     */
+    private synchronized void save() {
+        final Properties properties = new Properties();
+        properties.setProperty(SOURCE_KEY, source);
+        for (Entry entry : entries.values()) {
+            final CSVValidators validators = entry.validators();
+            if (validators != null && validators.eTag() != null) {
+                properties.setProperty(entry.yearWeek() + ".etag", validators.eTag());
+            }
+            if (validators != null && validators.lastModified() != null) {
+                properties.setProperty(entry.yearWeek() + ".lastModified", validators.lastModified());
+            }
+        }
+        final Path manifestPath = storagePath.resolve(MANIFEST_FILE_NAME);
+        try {
+            if (properties.size() == 1) {
+                Files.deleteIfExists(manifestPath);
+                return;
+            }
+            final Path temporaryPath = Files.createTempFile(storagePath, MANIFEST_FILE_NAME, ".part");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                    properties.store(writer, null);
+                }
+                try {
+                    Files.move(temporaryPath, manifestPath, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } catch (IOException e) {
+            // the next download writes the manifest again
+        }
+    }
+
+    private Entry readEntry(final YearWeek pYearWeek, final long pNow) {
+        try {
+            final Path csvPath = csvPath(pYearWeek);
+            long size = Files.size(csvPath);
+            final long lastModified = Files.getLastModifiedTime(csvPath).toMillis();
+            try {
+                size += Files.size(storagePath.resolve(String.format("%s.snap", pYearWeek)));
+            } catch (NoSuchFileException e) {
+                // no snapshot was written for the file
+            }
+            return new Entry(pYearWeek, size, lastModified, pNow, null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path csvPath(final YearWeek pYearWeek) {
+        return storagePath.resolve(String.format("%s.csv", pYearWeek));
+    }
+
+    /**
+     * The state of the file of one week in the storage.
+     *
+     * @param yearWeek     The week of the file
+     * @param size         The size of the file and its snapshot in bytes
+     * @param lastModified The time of the download in milliseconds since the epoch
+     * @param lastAccess   The time of the last access in milliseconds since the epoch
+     * @param validators   The validators of the download, or {@code null} if none are known
+     */
+    public record Entry(YearWeek yearWeek, long size, long lastModified, long lastAccess,
+                        CSVValidators validators) {
+
+        private Entry withValidators(final CSVValidators pValidators) {
+            return new Entry(yearWeek, size, lastModified, lastAccess, pValidators);
+        }
+
+        private Entry withLastAccess(final long pLastAccess) {
+            return new Entry(yearWeek, size, lastModified, pLastAccess, validators);
+        }
+    }
+}
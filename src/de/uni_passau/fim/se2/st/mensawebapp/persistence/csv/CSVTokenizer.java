@@ -0,0 +1,117 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits the lines of a character stream into {@link CSVRecord}s without creating a string per line.
+ *
+ * <p>Lines are read into one buffer that is compacted and reused; a line is terminated by {@code \n},
+ * {@code \r}, or {@code \r\n}, like in {@link java.io.BufferedReader#readLine()}.
+ */
+final class CSVTokenizer implements CSVLineTokenizer {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final Reader reader;
+
+    private final String delimiter;
+
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    private int start;
+
+    private int limit;
+
+    private int lineStart;
+
+    private int lineEnd;
+
+    private boolean endOfInput;
+
+    private boolean skipLineFeed;
+
+    CSVTokenizer(final Reader pReader, final String pDelimiter) {
+        reader = pReader;
+        delimiter = pDelimiter;
+    }
+
+    @Override
+    public boolean next(final CSVRecord pRecord) throws IOException {
+        if (!advance()) {
+            return false;
+        }
+        pRecord.reset(buffer, lineStart, lineEnd, delimiter);
+        return true;
+    }
+
+    @Override
+    public String nextLine() throws IOException {
+        return advance() ? new String(buffer, lineStart, lineEnd - lineStart) : null;
+    }
+
+    /**
+     * Finds the next line in the buffer and moves behind its terminator.
+     *
+     * @return Whether a line was found, {@code false} at the end of the input
+     */
+    private boolean advance() throws IOException {
+        if (skipLineFeed) {
+            if (start == limit && !endOfInput) {
+                fill();
+            }
+            if (start < limit && buffer[start] == '\n') {
+                start++;
+            }
+            skipLineFeed = false;
+        }
+        int scan = start;
+        while (true) {
+            while (scan < limit && buffer[scan] != '\n' && buffer[scan] != '\r') {
+                scan++;
+            }
+            if (scan < limit) {
+                break;
+            }
+            if (endOfInput) {
+                if (start == limit) {
+                    return false;
+                }
+                break;
+            }
+            scan -= start;
+            fill();
+            scan += start;
+        }
+        lineStart = start;
+        lineEnd = scan;
+        start = scan;
+        if (start < limit) {
+            skipLineFeed = buffer[start] == '\r';
+            start++;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the unread characters to the front of the buffer, grows it if it is full, and reads more
+     * characters behind them.
+     */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        final int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
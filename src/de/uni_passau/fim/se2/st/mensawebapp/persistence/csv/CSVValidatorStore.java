@@ -0,0 +1,62 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the {@link CSVValidators} of the downloaded CSV files per {@link YearWeek}.
+ *
+ * <p>A {@link CSVFile} that is given a store revalidates its local copy with a conditional request
+ * instead of downloading it again.
+ */
+public interface CSVValidatorStore {
+
+    /**
+     * Provides a store that keeps the validators in memory.
+     *
+     * @return A new, empty, thread-safe store
+     */
+    static CSVValidatorStore inMemory() {
+        final Map<YearWeek, CSVValidators> validators = new ConcurrentHashMap<>();
+        return new CSVValidatorStore() {
+            @Override
+            public Optional<CSVValidators> get(final YearWeek pYearWeek) {
+                return Optional.ofNullable(validators.get(pYearWeek));
+            }
+
+            @Override
+            public void put(final YearWeek pYearWeek, final CSVValidators pValidators) {
+                validators.put(pYearWeek, pValidators);
+            }
+
+            @Override
+            public void remove(final YearWeek pYearWeek) {
+                validators.remove(pYearWeek);
+            }
+        };
+    }
+
+    /**
+     * Provides the validators of the file for a week.
+     *
+     * @param pYearWeek The week of the file
+     * @return The validators if any are known
+     */
+    Optional<CSVValidators> get(YearWeek pYearWeek);
+
+    /**
+     * Remembers the validators of the file for a week.
+     *
+     * @param pYearWeek   The week of the file
+     * @param pValidators The validators of the latest download
+     */
+    void put(YearWeek pYearWeek, CSVValidators pValidators);
+
+    /**
+     * Forgets the validators of the file for a week.
+     *
+     * @param pYearWeek The week of the file
+     */
+    void remove(YearWeek pYearWeek);
+}
@@ -0,0 +1,47 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import java.net.HttpURLConnection;
+
+/**
+ * The HTTP cache validators of a downloaded CSV file.
+ *
+ * <p>Either of the values may be {@code null} if the server did not send the respective header.
+ *
+ * @param eTag         The value of the {@code ETag} header
+ * @param lastModified The value of the {@code Last-Modified} header
+ */
+public record CSVValidators(String eTag, String lastModified) {
+
+    /**
+     * Reads the validators from the response headers of a connection.
+     *
+     * @param pConnection The connection after the response was received
+     * @return The validators of the response
+     */
+    public static CSVValidators of(final HttpURLConnection pConnection) {
+        return new CSVValidators(pConnection.getHeaderField("ETag"), pConnection.getHeaderField("Last-Modified"));
+    }
+
+    /**
+     * Checks whether none of the validators is known.
+     *
+     * @return Whether a conditional request is impossible with these validators
+     */
+    public boolean isEmpty() {
+        return eTag == null && lastModified == null;
+    }
+
+    /**
+     * Adds the conditional request headers to a connection that has not been connected yet.
+     *
+     * @param pConnection The connection to make conditional
+     */
+    public void applyTo(final HttpURLConnection pConnection) {
+        if (eTag != null) {
+            pConnection.setRequestProperty("If-None-Match", eTag);
+        }
+        if (lastModified != null) {
+            pConnection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.EnumMasks;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+
+import java.lang.reflect.Array;
+
+/**
+ * Decodes the annotated dish names and tag lists of the STWNO's CSV files in a single pass.
+ *
+ * <p>A name such as {@code Schweinebraten (2,3,A,G)} consists of the plain name, followed by an
+ * annotation in parentheses. Within the annotation, every run of digits is the index of an {@link
+ * Additive} and every run of capital letters is the token of an {@link Allergen}; everything else
+ * separates them. Only the text up to the next opening parenthesis belongs to the annotation.
+ * Unknown indices and tokens are ignored.
+ *
+ * <p>Tokens are looked up in tables that are computed once, so decoding does not create
+ * intermediate strings and runs in time linear in the length of the input. The results are bitmasks
+ * as described in {@link EnumMasks}.
+ */
+final class DishNameDecoder {
+
+    private static final int LETTERS = 26;
+
+    private static final Allergen[] ALLERGENS = tokenTable(Allergen.values(), Allergen.class);
+
+    private static final Tag[] TAGS = tokenTable(Tag.values(), Tag.class);
+
+    private static final Additive[] ADDITIVES = Additive.values();
+
+    private DishNameDecoder() {
+    }
+
+    /**
+     * Decodes an annotated dish name.
+     *
+     * @param pValue The value of the {@code name} column
+     * @return The plain name and the bitmasks of the additives and allergens of the annotation
+     */
+    static DecodedName decode(final CharSequence pValue) {
+        final int length = pValue.length();
+        int open = 0;
+        while (open < length && pValue.charAt(open) != '(') {
+            open++;
+        }
+        final String name = trim(pValue, 0, open);
+        long additives = 0L;
+        long allergens = 0L;
+        int i = open + 1;
+        while (i < length) {
+            final char c = pValue.charAt(i);
+            if (c == '(') {
+                break;
+            } else if (isDigit(c)) {
+                int index = 0;
+                while (i < length && isDigit(pValue.charAt(i))) {
+                    index = index > ADDITIVES.length ? index : index * 10 + pValue.charAt(i) - '0';
+                    i++;
+                }
+                if (index > 0 && index <= ADDITIVES.length) {
+                    additives |= EnumMasks.bit(ADDITIVES[index - 1]);
+                }
+            } else if (isLetter(c)) {
+                final int start = i;
+                while (i < length && isLetter(pValue.charAt(i))) {
+                    i++;
+                }
+                final Allergen allergen = lookup(ALLERGENS, pValue, start, i);
+                if (allergen != null) {
+                    allergens |= EnumMasks.bit(allergen);
+                }
+            } else {
+                i++;
+            }
+        }
+        return new DecodedName(name, additives, allergens);
+    }
+
+    /**
+     * Decodes a comma-separated list of tag tokens.
+     *
+     * @param pValue The value of the {@code kennz} column
+     * @return The bitmask of the known tags of the list
+     */
+    static long decodeTags(final CharSequence pValue) {
+        long tags = 0L;
+        final int length = pValue.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || pValue.charAt(i) == ',') {
+                final Tag tag = lookup(TAGS, pValue, start, i);
+                if (tag != null) {
+                    tags |= EnumMasks.bit(tag);
+                }
+                start = i + 1;
+            }
+        }
+        return tags;
+    }
+
+    private static <E> E lookup(final E[] pTable, final CharSequence pValue, final int pStart, final int pEnd) {
+        final int length = pEnd - pStart;
+        if (length < 1 || length > 2) {
+            return null;
+        }
+        final char first = pValue.charAt(pStart);
+        final char second = length == 2 ? pValue.charAt(pStart + 1) : 0;
+        if (!isLetter(first) || (length == 2 && !isLetter(second))) {
+            return null;
+        }
+        return pTable[code(first, second)];
+    }
+
+    private static int code(final char pFirst, final char pSecond) {
+        return (pFirst - 'A') * (LETTERS + 1) + (pSecond == 0 ? 0 : pSecond - 'A' + 1);
+    }
+
+    private static <E extends Enum<E>> E[] tokenTable(final E[] pValues, final Class<E> pType) {
+        @SuppressWarnings("unchecked")
+        final E[] table = (E[]) Array.newInstance(pType, LETTERS * (LETTERS + 1));
+        for (E value : pValues) {
+            final String token = value.name();
+            table[code(token.charAt(0), token.length() == 2 ? token.charAt(1) : 0)] = value;
+        }
+        return table;
+    }
+
+    private static boolean isDigit(final char pChar) {
+        return pChar >= '0' && pChar <= '9';
+    }
+
+    private static boolean isLetter(final char pChar) {
+        return pChar >= 'A' && pChar <= 'Z';
+    }
+
+    private static String trim(final CharSequence pValue, final int pStart, final int pEnd) {
+        int start = pStart;
+        int end = pEnd;
+        while (start < end && pValue.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && pValue.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return pValue.subSequence(start, end).toString();
+    }
+
+    /**
+     * The parts of an annotated dish name.
+     *
+     * @param name      The plain name without the annotation
+     * @param additives The bitmask of the additives of the annotation
+     * @param allergens The bitmask of the allergens of the annotation
+     */
+    record DecodedName(String name, long additives, long allergens) {
+    }
+}
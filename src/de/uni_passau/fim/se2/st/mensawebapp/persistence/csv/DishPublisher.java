@@ -0,0 +1,228 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.google.common.base.Preconditions;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Flow.Publisher} of the {@link Dish}es that a source emits one by one, e.g., a
+ * {@link CSVParser} while it reads its file.
+ *
+ * <p>Every subscription runs the source anew on a task of the executor. The task passes every dish
+ * that matches the filter to the subscriber as soon as the subscriber has requested it, and blocks
+ * the source until it has; so no more dishes are held in memory than the source itself holds, no
+ * matter how slow the subscriber is.
+ *
+ * <p>Cancelling a subscription aborts the source at the next dish it emits, closing the files and
+ * connections it has opened. A source that fails signals its exception with
+ * {@link Flow.Subscriber#onError(Throwable)}, so does a task that is interrupted while it waits for
+ * demand, e.g., because its executor is shut down; the interrupt is restored once the source has been
+ * closed.
+ */
+public final class DishPublisher implements Flow.Publisher<Dish> {
+
+    private final Source source;
+
+    private final Predicate<Dish> filter;
+
+    private final Executor executor;
+
+    /**
+     * Instantiates a new publisher that publishes all dishes of a source.
+     *
+     * @param pSource   The source of the dishes
+     * @param pExecutor The executor for the tasks of the subscriptions
+     */
+    public DishPublisher(final Source pSource, final Executor pExecutor) {
+        this(pSource, dish -> true, pExecutor);
+    }
+
+    /**
+     * Instantiates a new publisher that publishes the dishes of a source that match a filter.
+     *
+     * @param pSource   The source of the dishes
+     * @param pFilter   The filter, tested on the task of the subscription
+     * @param pExecutor The executor for the tasks of the subscriptions
+     */
+    public DishPublisher(final Source pSource, final Predicate<Dish> pFilter, final Executor pExecutor) {
+        source = Preconditions.checkNotNull(pSource);
+        filter = Preconditions.checkNotNull(pFilter);
+        executor = Preconditions.checkNotNull(pExecutor);
+    }
+
+    /**
+     * Creates a publisher of the dishes of this publisher that also match another filter.
+     *
+     * @param pFilter The additional filter
+     * @return The new publisher
+     */
+    public DishPublisher filter(final Predicate<Dish> pFilter) {
+        return new DishPublisher(source, filter.and(pFilter), executor);
+    }
+
+    /**
+     * Subscribes to the dishes and starts the source once the subscriber has been given its
+     * subscription.
+     *
+     * @param pSubscriber The subscriber
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Dish> pSubscriber) {
+        final Subscription subscription = new Subscription(pSubscriber);
+        pSubscriber.onSubscribe(subscription);
+        try {
+            executor.execute(subscription::run);
+        } catch (RejectedExecutionException e) {
+            pSubscriber.onError(e);
+        }
+    }
+
+    /**
+     * A source that emits dishes to a consumer until it is done.
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * Emits the dishes, the consumer may throw an unchecked exception to abort the source.
+         *
+         * @param pConsumer The consumer for the dishes
+         * @throws Exception In case the dishes could not be provided
+         */
+        void emit(Consumer<Dish> pConsumer) throws Exception;
+    }
+
+    /**
+     * Aborts a source after its subscription has been cancelled.
+     */
+    private static final class Cancellation extends RuntimeException {
+
+        private Cancellation() {
+            super("Subscription cancelled", null, false, false);
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Dish> subscriber;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition demanded = lock.newCondition();
+
+        private long demand;
+
+        private boolean cancelled;
+
+        private Throwable error;
+
+        private boolean interrupted;
+
+        private Subscription(final Flow.Subscriber<? super Dish> pSubscriber) {
+            subscriber = pSubscriber;
+        }
+
+        @Override
+        public void request(final long pCount) {
+            lock.lock();
+            try {
+                if (pCount <= 0) {
+                    if (!cancelled && error == null) {
+                        error = new IllegalArgumentException("Requested count must be positive.");
+                    }
+                } else {
+                    demand = demand + pCount < 0 ? Long.MAX_VALUE : demand + pCount;
+                }
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Runs the source and signals its dishes and its end to the subscriber.
+         */
+        private void run() {
+            Throwable failure = null;
+            try {
+                source.emit(dish -> {
+                    if (filter.test(dish)) {
+                        awaitDemand();
+                        subscriber.onNext(dish);
+                    }
+                });
+            } catch (Cancellation e) {
+                // the subscription has ended, an invalid request or an interrupt is signalled below
+            } catch (Exception e) {
+                failure = e;
+            }
+            final boolean signal;
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                }
+                signal = !cancelled || error != null;
+                cancelled = true;
+            } finally {
+                lock.unlock();
+            }
+            if (signal) {
+                if (failure != null) {
+                    subscriber.onError(failure);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Blocks until the subscriber has requested another dish, or aborts the source if the
+         * subscription has ended in the meantime.
+         */
+        private void awaitDemand() {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled && error == null) {
+                    demanded.await();
+                }
+                if (cancelled || error != null) {
+                    throw new Cancellation();
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } catch (InterruptedException e) {
+                // the source closes its resources before the interrupt is restored in run()
+                interrupted = true;
+                if (error == null && !cancelled) {
+                    error = e;
+                }
+                throw new Cancellation();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
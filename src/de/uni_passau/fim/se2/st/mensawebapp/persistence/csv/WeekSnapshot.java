@@ -0,0 +1,217 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary snapshot of the parsed {@link WeekMenu} of a {@link CSVFile}.
+ *
+ * <p>The snapshot is stored next to the CSV file and allows loading a week after a restart without
+ * downloading and parsing the CSV file again. It holds the dish names in a dictionary and the
+ * additives, allergens, and tags as bitmasks, the prices in cents, and the dates as epoch days.
+ *
+ * <p>A snapshot is only used while it is fresh: it has to be of the current {@link #VERSION}, made
+ * from the same URL, and the CSV file it was made from must still be unchanged on the storage. A
+ * trailing checksum rejects truncated or corrupt snapshots. The format depends on the declaration
+ * order of the dish enums, so {@link #VERSION} has to be increased whenever one of them changes.
+ */
+public final class WeekSnapshot {
+
+    /**
+     * The current version of the snapshot format, snapshots of other versions are ignored.
+     */
+    public static final short VERSION = 1;
+
+    private static final int MAGIC = 0x4D534E50;
+
+    private static final byte NO_TYPE = -1;
+
+    private static final DishType[] DISH_TYPES = DishType.values();
+
+    private WeekSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot of the parsed menu of a CSV file.
+     *
+     * <p>The snapshot is written to a temporary file first and then moved into place atomically. It
+     * is only read while the CSV file still has the given version, so the version has to be the one
+     * of the local copy the menu was actually parsed from, see
+     * {@link CSVParser#parseVersionedMenu()}.
+     *
+     * @param pFile    The CSV file the menu was parsed from
+     * @param pMenu    The parsed menu
+     * @param pVersion The version of the local copy the menu was parsed from
+     * @throws IOException In case of I/O errors
+     */
+    public static void write(final CSVFile pFile, final WeekMenu pMenu, final CSVFile.Version pVersion)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 64 * pMenu.size());
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeInt(pFile.getYearWeek().year());
+        output.writeInt(pFile.getYearWeek().week());
+        output.writeLong(System.currentTimeMillis());
+        output.writeLong(pVersion.size());
+        output.writeLong(pVersion.lastModified());
+        writeString(output, pFile.getDownloadURL().toString());
+
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        for (Dish dish : pMenu.getDishes()) {
+            if (dictionary.putIfAbsent(dish.name(), names.size()) == null) {
+                names.add(dish.name());
+            }
+        }
+        output.writeInt(names.size());
+        for (String name : names) {
+            writeString(output, name);
+        }
+        output.writeInt(pMenu.size());
+        for (Dish dish : pMenu.getDishes()) {
+            output.writeByte(dish.type() == null ? NO_TYPE : dish.type().ordinal());
+            output.writeInt(dictionary.get(dish.name()));
+            output.writeLong(dish.additiveMask());
+            output.writeLong(dish.allergenMask());
+            output.writeLong(dish.tagMask());
+            output.writeLong(dish.studentPriceCents());
+            output.writeLong(dish.staffPriceCents());
+            output.writeLong(dish.guestPriceCents());
+            output.writeInt(Math.toIntExact(dish.date().toEpochDay()));
+        }
+        final CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        output.writeInt((int) checksum.getValue());
+        output.flush();
+
+        final Path snapshotPath = pFile.getSnapshotPath();
+        final Path temporaryPath = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(),
+                snapshotPath.getFileName().toString(), ".part");
+        try {
+            Files.write(temporaryPath, bytes.toByteArray());
+            try {
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Reads the snapshot of a CSV file if it is still fresh.
+     *
+     * @param pFile          The CSV file the snapshot was made from
+     * @param pMaxAgeSeconds The maximum age of the snapshot in seconds
+     * @return The menu of the snapshot, or an empty optional if the snapshot is missing, stale, of
+     *     another version, or corrupt
+     */
+    public static Optional<WeekMenu> read(final CSVFile pFile, final long pMaxAgeSeconds) {
+        final CSVFile.Version source;
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(pFile.getSnapshotPath(), StandardOpenOption.READ)) {
+            source = pFile.readVersion();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(decode(buffer, pFile, source, pMaxAgeSeconds));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static WeekMenu decode(final ByteBuffer pBuffer, final CSVFile pFile,
+                                   final CSVFile.Version pSource, final long pMaxAgeSeconds) {
+        if (pBuffer.remaining() < Integer.BYTES + Short.BYTES || pBuffer.getInt() != MAGIC
+                || pBuffer.getShort() != VERSION || !hasValidChecksum(pBuffer)) {
+            return null;
+        }
+        final YearWeek yearWeek = pFile.getYearWeek();
+        if (pBuffer.getInt() != yearWeek.year() || pBuffer.getInt() != yearWeek.week()
+                || System.currentTimeMillis() - pBuffer.getLong() > pMaxAgeSeconds * 1000
+                || pBuffer.getLong() != pSource.size()
+                || pBuffer.getLong() != pSource.lastModified()
+                || !readString(pBuffer).equals(pFile.getDownloadURL().toString())) {
+            return null;
+        }
+        final String[] names = new String[pBuffer.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(pBuffer);
+        }
+        final int size = pBuffer.getInt();
+        final WeekMenu.Builder builder = new WeekMenu.Builder();
+        for (int i = 0; i < size; i++) {
+            final byte type = pBuffer.get();
+            final int name = pBuffer.getInt();
+            if (type != NO_TYPE && (type < 0 || type >= DISH_TYPES.length) || name < 0 || name >= names.length) {
+                return null;
+            }
+            builder.add(new Dish(
+                    type == NO_TYPE ? null : DISH_TYPES[type],
+                    names[name],
+                    pBuffer.getLong(),
+                    pBuffer.getLong(),
+                    pBuffer.getLong(),
+                    pBuffer.getLong(),
+                    pBuffer.getLong(),
+                    pBuffer.getLong(),
+                    LocalDate.ofEpochDay(pBuffer.getInt())));
+        }
+        return builder.build();
+    }
+
+    private static boolean hasValidChecksum(final ByteBuffer pBuffer) {
+        final int end = pBuffer.limit() - Integer.BYTES;
+        if (end < pBuffer.position()) {
+            return false;
+        }
+        final ByteBuffer content = pBuffer.duplicate();
+        content.position(0).limit(end);
+        final CRC32 checksum = new CRC32();
+        checksum.update(content);
+        if ((int) checksum.getValue() != pBuffer.getInt(end)) {
+            return false;
+        }
+        pBuffer.limit(end);
+        return true;
+    }
+
+    private static void writeString(final DataOutputStream pOutput, final String pValue) throws IOException {
+        final byte[] bytes = pValue.getBytes(StandardCharsets.UTF_8);
+        pOutput.writeInt(bytes.length);
+        pOutput.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer pBuffer) {
+        final byte[] bytes = new byte[pBuffer.getInt()];
+        pBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
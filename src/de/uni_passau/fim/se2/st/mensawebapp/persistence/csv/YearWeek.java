@@ -0,0 +1,41 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Identifies the menu of one week of a year.
+ *
+ * <p>The STWNO publishes one CSV file per week; a {@code YearWeek} is the key for that file.
+ *
+ * @param year The year of the menu
+ * @param week The week number of the menu, between 1 and 53
+ */
+public record YearWeek(int year, int week) implements Comparable<YearWeek> {
+
+    /**
+     * Instantiates a new {@code YearWeek} object.
+     *
+     * @throws IllegalStateException In case the week number is illegal
+     */
+    public YearWeek {
+        Preconditions.checkState(week > 0 && week < 54);
+    }
+
+    @Override
+    public int compareTo(final YearWeek pOther) {
+        if (year != pOther.year) {
+            return Integer.compare(year, pOther.year);
+        }
+        return Integer.compare(week, pOther.week);
+    }
+
+    /**
+     * Provides the representation used in the file names of the STWNO, e.g. {@code 2023-48}.
+     *
+     * @return The textual representation of the year and week
+     */
+    @Override
+    public String toString() {
+        return String.format("%d-%d", year, week);
+    }
+}
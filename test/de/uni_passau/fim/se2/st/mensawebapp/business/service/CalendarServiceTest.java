@@ -1,9 +1,11 @@
 package de.uni_passau.fim.se2.st.mensawebapp.business.service;
 
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoField;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -20,4 +22,34 @@ void test_getWeekNumber_today() {
     void test_getYear_today() {
         assertEquals(CalendarService.getYear(today), today.getYear());
     }
+
+    @Test
+    void test_getYearWeek() {
+        assertEquals(new YearWeek(2023, 48), CalendarService.getYearWeek(LocalDate.of(2023, 12, 1)));
+    }
+
+    @Test
+    void test_getFirstDayOfWeek() {
+        assertEquals(LocalDate.of(2023, 11, 26), CalendarService.getFirstDayOfWeek(LocalDate.of(2023, 12, 1)));
+        assertEquals(LocalDate.of(2023, 12, 31), CalendarService.getFirstDayOfWeek(LocalDate.of(2023, 12, 31)));
+        assertEquals(LocalDate.of(2024, 1, 1), CalendarService.getFirstDayOfWeek(LocalDate.of(2024, 1, 7)));
+    }
+
+    @Test
+    void test_getWeekStarts_acrossYearBoundary() {
+        List<LocalDate> weekStarts = CalendarService.getWeekStarts(LocalDate.of(2023, 12, 28), 2);
+        assertEquals(List.of(LocalDate.of(2023, 12, 24), LocalDate.of(2023, 12, 31), LocalDate.of(2024, 1, 1)),
+                weekStarts);
+        assertEquals(List.of(new YearWeek(2023, 52), new YearWeek(2023, 53), new YearWeek(2024, 1)),
+                weekStarts.stream().map(CalendarService::getYearWeek).toList());
+    }
+
+    @Test
+    void test_getYearWeeks_acrossYearBoundary() {
+        assertEquals(List.of(new YearWeek(2023, 52), new YearWeek(2023, 53), new YearWeek(2024, 1)),
+                CalendarService.getYearWeeks(LocalDate.of(2023, 12, 30), LocalDate.of(2024, 1, 2)));
+        assertEquals(List.of(new YearWeek(2023, 48)),
+                CalendarService.getYearWeeks(LocalDate.of(2023, 11, 27), LocalDate.of(2023, 11, 27)));
+        assertEquals(List.of(), CalendarService.getYearWeeks(LocalDate.of(2023, 11, 28), LocalDate.of(2023, 11, 27)));
+    }
 }
@@ -0,0 +1,143 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.EnumMasks;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DishIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 11, 26);
+
+    private static final long ALLERGENS = (1L << Allergen.values().length) - 1;
+
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @Test
+    void test_filter_equalsScan() {
+        DishIndex index = new DishIndex();
+        Map<YearWeek, WeekMenu> loaded = new HashMap<>();
+        for (int round = 0; round < 200; round++) {
+            int week = random.nextInt(8);
+            YearWeek yearWeek = CalendarService.getYearWeek(START.plusWeeks(week));
+            if (random.nextInt(3) == 0 && loaded.containsKey(yearWeek)) {
+                index.remove(yearWeek, loaded.remove(yearWeek));
+            } else {
+                WeekMenu menu = menu(START.plusWeeks(week), 5 + random.nextInt(40));
+                index.add(yearWeek, menu);
+                loaded.put(yearWeek, menu);
+            }
+        }
+        assertEquals(loaded.values().stream().mapToInt(WeekMenu::size).sum(), index.size());
+
+        LocalDate from = START.plusDays(3);
+        LocalDate to = START.plusWeeks(8).minusDays(2);
+        List<YearWeek> yearWeeks = CalendarService.getYearWeeks(from, to);
+        for (YearWeek yearWeek : yearWeeks) {
+            loaded.computeIfAbsent(yearWeek, key -> {
+                WeekMenu menu = menu(START.plusWeeks(yearWeeks.indexOf(key)), 10);
+                index.add(key, menu);
+                return menu;
+            });
+        }
+        List<WeekMenu> menus = yearWeeks.stream().map(loaded::get).toList();
+        for (int query = 0; query < 50; query++) {
+            long additives = random.nextLong() & random.nextLong() & 0x1FFFFL;
+            long allergens = random.nextLong() & random.nextLong() & random.nextLong() & ALLERGENS;
+            long tags = random.nextInt(4) == 0 ? EnumMasks.bit(Tag.S) : 0L;
+            long includedTags = random.nextBoolean() ? EnumMasks.bit(Tag.V) | EnumMasks.bit(Tag.VG) : 0L;
+            long includedTypes = random.nextBoolean() ? EnumMasks.bit(DishType.MAIN) : 0L;
+            List<Dish> expected = new ArrayList<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                for (Dish dish : loaded.get(CalendarService.getYearWeek(date)).getDishes(date)) {
+                    if ((dish.additiveMask() & additives) == 0 && (dish.allergenMask() & allergens) == 0
+                            && (dish.tagMask() & tags) == 0
+                            && (includedTags == 0 || (dish.tagMask() & includedTags) != 0)
+                            && (includedTypes == 0 || dish.type() != null
+                            && (EnumMasks.bit(dish.type()) & includedTypes) != 0)) {
+                        expected.add(dish);
+                    }
+                }
+            }
+            assertEquals(Optional.of(expected),
+                    index.filter(menus, from, to, additives, allergens, tags, includedTags, includedTypes));
+        }
+    }
+
+    @Test
+    void test_remove_ignoresReplacedMenu() {
+        DishIndex index = new DishIndex();
+        YearWeek yearWeek = CalendarService.getYearWeek(START);
+        WeekMenu first = menu(START, 10);
+        WeekMenu second = menu(START, 12);
+        index.add(yearWeek, first);
+        index.add(yearWeek, second);
+        index.remove(yearWeek, first);
+        assertEquals(12, index.size());
+        assertTrue(index.filter(List.of(first), START, START.plusDays(6), 0, 0, 0, 0, 0).isEmpty());
+        assertEquals(Optional.of(second.getDishes().stream().sorted(Comparator.comparing(Dish::date)).toList()),
+                index.filter(List.of(second), START, START.plusDays(6), 0, 0, 0, 0, 0));
+        index.remove(yearWeek, second);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void test_filter_concurrentWithWriters() throws Exception {
+        DishIndex index = new DishIndex();
+        YearWeek yearWeek = CalendarService.getYearWeek(START);
+        WeekMenu stable = menu(START, 30);
+        index.add(yearWeek, stable);
+        DishIndex.Statistics statistics = index.getStatistics();
+        List<Dish> expected = stable.getDishes().stream().sorted(Comparator.comparing(Dish::date)).toList();
+        List<WeekMenu> others = new ArrayList<>();
+        for (int week = 1; week <= 8; week++) {
+            others.add(menu(START.plusWeeks(week), 40));
+        }
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int round = 0; round < 200; round++) {
+                WeekMenu menu = others.get(round % others.size());
+                YearWeek other = CalendarService.getYearWeek(menu.getDishes().get(0).date());
+                index.add(other, menu);
+                if (round % 3 == 0) {
+                    index.remove(other, menu);
+                }
+            }
+        });
+        while (!writer.isDone()) {
+            assertEquals(Optional.of(expected),
+                    index.filter(List.of(stable), START, START.plusDays(6), 0, 0, 0, 0, 0));
+        }
+        writer.get();
+        assertEquals(30, statistics.size());
+        assertTrue(index.getStatistics().size() > 30);
+    }
+
+    private WeekMenu menu(final LocalDate pWeekStart, final int pDishes) {
+        WeekMenu.Builder builder = new WeekMenu.Builder();
+        DishType[] types = {DishType.MAIN, DishType.SIDE, DishType.DESSERT, DishType.APPETISER, null};
+        for (int i = 0; i < pDishes; i++) {
+            builder.add(new Dish(types[random.nextInt(types.length)], "Dish " + i,
+                    random.nextLong() & random.nextLong() & 0x1FFFFL, random.nextLong() & random.nextLong() & ALLERGENS,
+                    1L << random.nextInt(Tag.values().length), 250, 350, 450,
+                    pWeekStart.plusDays(random.nextInt(7))));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,96 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.LocalCSVServer;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DishPrefetchSchedulerTest {
+
+    @TempDir
+    Path storagePath;
+
+    private LocalCSVServer server;
+
+    private DishService dishService;
+
+    private final Clock clock = Clock.fixed(ZonedDateTime.of(2023, 11, 28, 9, 0, 0, 0, ZoneOffset.UTC).toInstant(),
+            ZoneOffset.UTC);
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new LocalCSVServer();
+        server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+        server.serveResource(new YearWeek(2023, 49), "2023-48.csv");
+        dishService = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void test_prefetch_loadsUpcomingWeeks() throws CSVLoadException {
+        try (DishPrefetchScheduler scheduler = new DishPrefetchScheduler.Builder(dishService)
+                .setClock(clock).setWeeksAhead(2).build()) {
+            assertEquals(2, scheduler.prefetch());
+            assertEquals(2, scheduler.getLoadedWeeks());
+            assertEquals(1, scheduler.getFailedWeeks());
+        }
+        assertEquals(2, server.getFullResponses());
+        assertEquals(5, dishService.getDishes(LocalDate.of(2023, 12, 1)).size());
+        assertEquals(0, dishService.getCacheStats().missCount());
+    }
+
+    @Test
+    void test_start_prefetchesImmediately() throws InterruptedException {
+        try (DishPrefetchScheduler scheduler = new DishPrefetchScheduler.Builder(dishService)
+                .setClock(clock).setRefreshInterval(Duration.ofHours(1)).build()) {
+            scheduler.start();
+            assertThrows(IllegalStateException.class, scheduler::start);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (scheduler.getLoadedWeeks() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertEquals(2, scheduler.getLoadedWeeks());
+        }
+    }
+
+    @Test
+    void test_getNextWarmUp_skipsWeekends() {
+        try (DishPrefetchScheduler scheduler = new DishPrefetchScheduler.Builder(dishService)
+                .setPeakTimes(Set.of(LocalTime.of(11, 0), LocalTime.of(17, 30)))
+                .setWarmUpLead(Duration.ofMinutes(10)).build()) {
+            ZonedDateTime fridayMorning = ZonedDateTime.of(2023, 12, 1, 10, 45, 0, 0, ZoneOffset.UTC);
+            assertEquals(fridayMorning.withMinute(50), scheduler.getNextWarmUp(fridayMorning));
+            assertEquals(ZonedDateTime.of(2023, 12, 1, 17, 20, 0, 0, ZoneOffset.UTC),
+                    scheduler.getNextWarmUp(fridayMorning.withMinute(50)));
+            assertEquals(ZonedDateTime.of(2023, 12, 4, 10, 50, 0, 0, ZoneOffset.UTC),
+                    scheduler.getNextWarmUp(fridayMorning.withHour(18)));
+        }
+    }
+
+    @Test
+    void test_getNextWarmUp_withoutPeaks() {
+        try (DishPrefetchScheduler scheduler = new DishPrefetchScheduler.Builder(dishService)
+                .setPeakTimes(Set.of()).build()) {
+            assertNull(scheduler.getNextWarmUp(ZonedDateTime.now(clock)));
+        }
+    }
+}
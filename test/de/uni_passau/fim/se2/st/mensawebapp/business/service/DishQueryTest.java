@@ -0,0 +1,134 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.LocalCSVServer;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DishQueryTest {
+
+    private static final LocalDate FROM = LocalDate.of(2023, 11, 27);
+
+    private static final LocalDate TO = LocalDate.of(2023, 12, 1);
+
+    @TempDir
+    Path storagePath;
+
+    @Test
+    void test_query_equalsScan() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            DishQuery query = new DishQuery.Builder(FROM, TO)
+                    .setIncludedTags(List.of(Tag.V, Tag.VG))
+                    .setExcludedAllergens(List.of(Allergen.G))
+                    .setTypes(List.of(DishType.MAIN, DishType.SIDE))
+                    .setMaxPrice(DishQuery.PriceGroup.STUDENT, new BigDecimal("3.50"))
+                    .build();
+
+            List<Dish> expected = new ArrayList<>();
+            for (Dish dish : service.getDishes(FROM, TO)) {
+                if ((dish.tags().contains(Tag.V) || dish.tags().contains(Tag.VG))
+                        && !dish.allergens().contains(Allergen.G)
+                        && (dish.type() == DishType.MAIN || dish.type() == DishType.SIDE)
+                        && dish.studentPrice().compareTo(new BigDecimal("3.50")) <= 0) {
+                    expected.add(dish);
+                }
+            }
+
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, service.query(query));
+            assertEquals(service.getDishes(FROM, TO), service.query(new DishQuery.Builder(FROM, TO).build()));
+        }
+    }
+
+    @Test
+    void test_explain_mostSelectiveFirst() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            service.getDishes(FROM, TO);
+            DishQuery query = new DishQuery.Builder(FROM, TO)
+                    .setExcludedTags(List.of(Tag.S))
+                    .setIncludedTags(List.of(Tag.VG))
+                    .setMinPrice(DishQuery.PriceGroup.GUEST, BigDecimal.ONE)
+                    .build();
+
+            DishQuery.Explanation explanation = service.explain(query);
+
+            List<DishQuery.Explanation.Step> steps = explanation.steps();
+            assertEquals(3, steps.size());
+            assertTrue(steps.get(0).description().startsWith("any tag of"));
+            assertEquals(service.getDishes(FROM, TO).size(), explanation.scanned());
+            assertEquals(explanation.scanned(), steps.get(0).tested());
+            for (int i = 1; i < steps.size(); i++) {
+                assertTrue(steps.get(i - 1).estimatedSelectivity() <= steps.get(i).estimatedSelectivity());
+                assertEquals(steps.get(i - 1).passed(), steps.get(i).tested());
+            }
+            assertEquals(steps.get(2).passed(), explanation.result().size());
+            assertEquals(service.query(query), explanation.result());
+            assertTrue(explanation.toString().contains("estimated"));
+        }
+    }
+
+    @Test
+    void test_filterDishes_singleDay() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            List<Dish> filtered = service.filterDishes(FROM, List.of(), List.of(Allergen.G), List.of(Tag.S));
+            assertEquals(service.filterDishes(FROM, FROM, List.of(), List.of(Allergen.G), List.of(Tag.S)), filtered);
+            assertThrows(UnsupportedOperationException.class, () -> filtered.add(filtered.get(0)));
+            assertEquals(Set.of(FROM), Set.copyOf(filtered.stream().map(Dish::date).toList()));
+        }
+    }
+
+    @Test
+    void test_query_memoizesUntilWeekIsReloaded() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.serve(new YearWeek(2023, 49), ("datum;tag;warengruppe;name;kennz;stud;bed;gast\n"
+                    + "04.12.2023;Mo;HG1;Nudeln (A);V;2,00;3,00;4,00\n").getBytes(StandardCharsets.UTF_8));
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            LocalDate nextWeek = LocalDate.of(2023, 12, 4);
+            DishQuery vegetarian = new DishQuery.Builder(FROM).setIncludedTags(List.of(Tag.V)).build();
+            DishQuery vegetarianNextWeek = new DishQuery.Builder(nextWeek).setIncludedTags(List.of(Tag.V)).build();
+
+            List<Dish> first = service.query(vegetarian);
+            List<Dish> nextWeekFirst = service.query(vegetarianNextWeek);
+            assertSame(first, service.query(new DishQuery.Builder(FROM).setIncludedTags(List.of(Tag.V)).build()));
+            assertEquals(1, service.getFilterCacheStats().hitCount());
+
+            service.refresh(FROM);
+            assertSame(first, service.query(vegetarian));
+            assertEquals(1, server.getNotModifiedResponses());
+
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            service.refresh(FROM);
+            List<Dish> reloaded = service.query(vegetarian);
+            assertNotSame(first, reloaded);
+            assertEquals(first, reloaded);
+            assertSame(nextWeekFirst, service.query(vegetarianNextWeek));
+        }
+    }
+
+    @Test
+    void test_builder_rejectsReversedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new DishQuery.Builder(TO, FROM));
+    }
+}
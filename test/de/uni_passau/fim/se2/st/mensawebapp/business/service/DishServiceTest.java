@@ -3,9 +3,12 @@
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.DishType;
 import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVFile;
 import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.CSVParser;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.LocalCSVServer;
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -14,15 +17,27 @@
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -128,6 +143,363 @@ void test_deleteOldData_notDeleted() throws CSVLoadException, InterruptedExcepti
         assertFalse(isEmpty(correctPath));
     }
 
+    @Test
+    void test_getDishes_cachesParsedWeek() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            List<Dish> friday = service.getDishes(legitDate);
+            List<Dish> monday = service.getDishes(LocalDate.of(2023, 11, 27));
+            assertEquals(friday, service.getDishes(legitDate));
+            assertEquals(5, friday.size());
+            assertEquals(5, monday.size());
+            assertEquals(1, service.getCacheStats().missCount());
+            assertEquals(2, service.getCacheStats().hitCount());
+            assertEquals(1, server.getFullResponses());
+        }
+    }
+
+    @Test
+    void test_getDishes_cacheExpiresWithMaxAge() throws IOException, CSVLoadException, InterruptedException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 1L);
+            service.getDishes(legitDate);
+            TimeUnit.MILLISECONDS.sleep(1100);
+            service.getDishes(legitDate);
+            assertEquals(2, service.getCacheStats().missCount());
+            assertEquals(1, service.getCacheStats().evictionCount());
+        }
+    }
+
+    @Test
+    void test_getDishes_cacheEvictsByWeight() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L, 1L);
+            List<Dish> dishes = service.getDishes(legitDate);
+            assertEquals(dishes, service.getDishes(legitDate));
+            assertEquals(2, service.getCacheStats().missCount());
+            assertEquals(2, service.getCacheStats().evictionCount());
+        }
+    }
+
+    @Test
+    void test_getDishes_unknownWeekIsNotCached() throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            assertThrows(CSVLoadException.class, () -> service.getDishes(legitDate));
+            assertThrows(CSVLoadException.class, () -> service.getDishes(legitDate));
+            assertEquals(2, service.getCacheStats().missCount());
+        }
+    }
+
+    @Test
+    void test_filterDishes_localFile() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            List<Additive> additives = List.of(Additive.A);
+            List<Allergen> allergens = List.of(Allergen.C, Allergen.HB);
+            List<Tag> tags = List.of(Tag.F, Tag.A);
+            List<Dish> expected = new LinkedList<>();
+            for (Dish dish : service.getDishes(legitDate)) {
+                if (Collections.disjoint(dish.tags(), tags) && Collections.disjoint(dish.additives(), additives)
+                        && Collections.disjoint(dish.allergens(), allergens)) {
+                    expected.add(dish);
+                }
+            }
+            List<Dish> filtered = service.filterDishes(legitDate, additives, allergens, tags);
+            assertEquals(expected, filtered);
+            assertEquals(List.of("Gemüsebrühe"), filtered.stream().map(Dish::name).toList());
+            assertEquals(service.getDishes(legitDate),
+                    service.filterDishes(legitDate, List.of(), List.of(), List.of()));
+        }
+    }
+
+    @Test
+    void test_getDishesByType_localFile() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            Map<DishType, List<Dish>> byType = service.getDishesByType(legitDate);
+            assertEquals(List.of(DishType.APPETISER, DishType.MAIN, DishType.SIDE, DishType.DESSERT),
+                    List.copyOf(byType.keySet()));
+            assertEquals(List.of("Fischstäbchen mit Kartoffelsalat", "Pasta mit Pesto"),
+                    byType.get(DishType.MAIN).stream().map(Dish::name).toList());
+            assertEquals(5, service.getDishes(legitDate).size());
+            assertTrue(service.getDishes(LocalDate.of(2023, 12, 2)).isEmpty());
+            assertTrue(service.getDishesByType(LocalDate.of(2023, 12, 2)).isEmpty());
+            assertEquals(1, service.getCacheStats().missCount());
+        }
+    }
+
+    @Test
+    void test_getDishes_concurrentReaders() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.setResponseDelay(200);
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<List<Dish>>> results = new ArrayList<>();
+                for (int i = 0; i < 64; i++) {
+                    results.add(executor.submit(() -> service.getDishes(legitDate)));
+                }
+                for (Future<List<Dish>> result : results) {
+                    assertEquals(5, result.get().size());
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertEquals(1, server.getFullResponses());
+            assertEquals(1, service.getCacheStats().loadCount());
+        }
+    }
+
+    @Test
+    void test_refresh_swapsSnapshot() throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            YearWeek yearWeek = new YearWeek(2023, 48);
+            server.serveResource(yearWeek, "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", correctPath, server.getBaseURI(), 60L);
+            List<Dish> before = service.getDishes(legitDate);
+            server.serve(yearWeek, ("datum;tag;warengruppe;name;kennz;stud;bed;gast\n"
+                    + "01.12.2023;Fr;HG1;Nudeln (A);V;2,00;3,00;4,00\n").getBytes(StandardCharsets.UTF_8));
+            assertEquals(before, service.getDishes(legitDate));
+            service.refresh(legitDate);
+            assertEquals(5, before.size());
+            assertEquals(List.of("Nudeln"), service.getDishes(legitDate).stream().map(Dish::name).toList());
+            server.serve(yearWeek, new byte[0]);
+            assertThrows(CSVLoadException.class, () -> service.refresh(legitDate));
+            assertEquals(List.of("Nudeln"), service.getDishes(legitDate).stream().map(Dish::name).toList());
+        }
+    }
+
+    @Test
+    void test_refresh_keepsSnapshotIfNotModified(@TempDir Path storagePath) throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            List<Dish> before = service.getDishes(legitDate);
+            Path snapshot = storagePath.resolve("2023-48.snap");
+            FileTime written = FileTime.fromMillis(Files.getLastModifiedTime(snapshot).toMillis() - 5000);
+            Files.setLastModifiedTime(snapshot, written);
+
+            service.refresh(legitDate);
+            assertEquals(1, server.getNotModifiedResponses());
+            assertSame(before, service.getDishes(legitDate));
+            assertEquals(written, Files.getLastModifiedTime(snapshot));
+            assertEquals(1, service.getCacheStats().loadCount());
+        }
+    }
+
+    @Test
+    void test_getDishes_restartLoadsSnapshot(@TempDir Path storagePath) throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            List<Dish> dishes = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L)
+                    .getDishes(legitDate);
+            DishService restarted = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            assertEquals(dishes, restarted.getDishes(legitDate));
+            assertEquals(1, server.getFullResponses());
+            restarted.refresh(legitDate);
+            assertEquals(1, server.getFullResponses());
+            assertEquals(1, server.getNotModifiedResponses());
+        }
+    }
+
+    @Test
+    void test_deleteOldData_diskBudget(@TempDir Path storagePath) throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.serveResource(new YearWeek(2023, 49), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L,
+                    DishService.DEFAULT_MAX_CACHE_WEIGHT, 1L);
+            service.getDishes(legitDate);
+            service.getDishes(LocalDate.of(2023, 12, 4));
+            assertEquals(2, new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L)
+                    .getStorageManifest().getEntries().size());
+            service.deleteOldData();
+            assertTrue(service.getStorageManifest().getEntries().isEmpty());
+            assertTrue(isEmpty(storagePath));
+            assertEquals(5, service.getDishes(legitDate).size());
+        }
+    }
+
+    @Test
+    void test_getDishes_range(@TempDir Path storagePath) throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.serve(new YearWeek(2023, 49), ("datum;tag;warengruppe;name;kennz;stud;bed;gast\n"
+                    + "04.12.2023;Mo;HG1;Nudeln (A);V;2,00;3,00;4,00\n"
+                    + "05.12.2023;Di;HG1;Reis;V;2,00;3,00;4,00\n").getBytes(StandardCharsets.UTF_8));
+            server.setResponseDelay(100);
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            List<Dish> range = service.getDishes(LocalDate.of(2023, 11, 30), LocalDate.of(2023, 12, 4));
+            List<Dish> expected = new ArrayList<>(service.getDishes(LocalDate.of(2023, 11, 30)));
+            expected.addAll(service.getDishes(legitDate));
+            expected.addAll(service.getDishes(LocalDate.of(2023, 12, 4)));
+            assertEquals(expected, range);
+            assertEquals("Nudeln", range.get(range.size() - 1).name());
+            assertEquals(2, server.getFullResponses());
+            assertThrows(CSVLoadException.class,
+                    () -> service.getDishes(LocalDate.of(2023, 12, 4), LocalDate.of(2023, 12, 10)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.getDishes(LocalDate.of(2023, 12, 4), LocalDate.of(2023, 12, 3)));
+        }
+    }
+
+    @Test
+    void test_filterDishes_range(@TempDir Path storagePath) throws IOException, CSVLoadException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.serve(new YearWeek(2023, 49), ("datum;tag;warengruppe;name;kennz;stud;bed;gast\n"
+                    + "04.12.2023;Mo;HG1;Nudeln (A);V;2,00;3,00;4,00\n"
+                    + "05.12.2023;Di;HG1;Reis;V;2,00;3,00;4,00\n").getBytes(StandardCharsets.UTF_8));
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            LocalDate from = LocalDate.of(2023, 11, 28);
+            LocalDate to = LocalDate.of(2023, 12, 5);
+            List<Dish> expected = new ArrayList<>();
+            for (Dish dish : service.getDishes(from, to)) {
+                if (!dish.allergens().contains(Allergen.G) && !dish.tags().contains(Tag.S)) {
+                    expected.add(dish);
+                }
+            }
+            List<Dish> filtered = service.filterDishes(from, to, List.of(), List.of(Allergen.G), List.of(Tag.S));
+            assertEquals(expected, filtered);
+            assertEquals("Reis", filtered.get(filtered.size() - 1).name());
+            service.refresh(from);
+            assertEquals(expected, service.filterDishes(from, to, List.of(), List.of(Allergen.G), List.of(Tag.S)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.filterDishes(to, from, List.of(), List.of(), List.of()));
+        }
+    }
+
+    @Test
+    void test_getDishesAsync(@TempDir Path storagePath) throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            LocalDate from = LocalDate.of(2023, 11, 27);
+            LocalDate to = LocalDate.of(2023, 12, 1);
+            CompletableFuture<List<Dish>> monday = service.getDishesAsync(from);
+            CompletableFuture<List<Dish>> filtered = service.filterDishesAsync(from, List.of(), List.of(Allergen.G),
+                    List.of(Tag.S));
+            CompletableFuture<List<Dish>> range = service.getDishesAsync(from, to);
+
+            assertEquals(service.getDishes(from), monday.get(5, TimeUnit.SECONDS));
+            assertEquals(service.filterDishes(from, List.of(), List.of(Allergen.G), List.of(Tag.S)),
+                    filtered.get(5, TimeUnit.SECONDS));
+            assertEquals(service.getDishes(from, to), range.get(5, TimeUnit.SECONDS));
+            assertEquals(1, server.getFullResponses());
+
+            ExecutionException missing = assertThrows(ExecutionException.class,
+                    () -> service.getDishesAsync(LocalDate.of(2023, 12, 4)).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CSVLoadException.class, missing.getCause());
+            assertThrows(IllegalArgumentException.class, () -> service.getDishesAsync(to, from));
+        }
+    }
+
+    @Test
+    void test_getDishesAsync_timeout(@TempDir Path storagePath) throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            server.setResponseDelay(2000);
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            service.setAsyncTimeout(Duration.ofMillis(50));
+
+            ExecutionException timeout = assertThrows(ExecutionException.class,
+                    () -> service.getDishesAsync(LocalDate.of(2023, 11, 27)).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, timeout.getCause());
+            assertThrows(IllegalArgumentException.class, () -> service.setAsyncTimeout(Duration.ZERO));
+        }
+    }
+
+    @Test
+    void test_getDishesAsync_cancelledBeforeStart(@TempDir Path storagePath) throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            List<Runnable> queued = new ArrayList<>();
+            service.setAsyncExecutor(queued::add);
+
+            CompletableFuture<List<Dish>> cancelled = service.getDishesAsync(LocalDate.of(2023, 11, 27));
+            CompletableFuture<List<Dish>> kept = service.getDishesAsync(LocalDate.of(2023, 11, 28));
+            assertTrue(cancelled.cancel(true));
+            queued.get(0).run();
+            assertEquals(0, server.getFullResponses());
+            queued.get(1).run();
+
+            assertTrue(cancelled.isCancelled());
+            assertFalse(kept.get(5, TimeUnit.SECONDS).isEmpty());
+            assertEquals(1, server.getFullResponses());
+        }
+    }
+
+    @Test
+    void test_publish(@TempDir Path storagePath) throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            DishService service = new DishService("dd.MM.yyyy", storagePath, server.getBaseURI(), 60L);
+            LocalDate from = LocalDate.of(2023, 11, 27);
+            LocalDate to = LocalDate.of(2023, 12, 1);
+            DishQuery query = new DishQuery.Builder(from, to).setExcludedAllergens(List.of(Allergen.G)).build();
+
+            List<Dish> published = new ArrayList<>();
+            CompletableFuture<List<Dish>> done = new CompletableFuture<>();
+            service.publish(query).subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription pSubscription) {
+                    subscription = pSubscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(Dish pDish) {
+                    published.add(pDish);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable pThrowable) {
+                    done.completeExceptionally(pThrowable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(published);
+                }
+            });
+            assertEquals(service.query(query), done.get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Throwable> failure = new CompletableFuture<>();
+            service.publishDishes(from, LocalDate.of(2023, 12, 4)).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription pSubscription) {
+                    pSubscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Dish pDish) {
+                }
+
+                @Override
+                public void onError(Throwable pThrowable) {
+                    failure.complete(pThrowable);
+                }
+
+                @Override
+                public void onComplete() {
+                    failure.complete(null);
+                }
+            });
+            assertInstanceOf(CSVLoadException.class, failure.get(5, TimeUnit.SECONDS));
+        }
+    }
+
     private boolean isEmpty(Path path) throws IOException {
         if (Files.isDirectory(path)) {
             try (DirectoryStream<Path> directory = Files.newDirectoryStream(path)) {
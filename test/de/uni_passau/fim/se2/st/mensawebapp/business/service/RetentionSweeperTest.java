@@ -0,0 +1,96 @@
+package de.uni_passau.fim.se2.st.mensawebapp.business.service;
+
+import de.uni_passau.fim.se2.st.mensawebapp.persistence.csv.YearWeek;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetentionSweeperTest {
+
+    @TempDir
+    Path storagePath;
+
+    private final URI baseURI = URI.create("http://localhost:1");
+
+    @Test
+    void test_sweep_deletesOldFilesAndLeftovers() throws IOException {
+        write("2023-40.csv", 100, 7200);
+        write("2023-40.snap", 10, 7200);
+        write("2023-41.csv123.part", 20, 7200);
+        write("2023-42.snap", 30, 0);
+        write("2023-43.csv456.part", 40, 0);
+        write("2023-44.csv", 50, 0);
+        DishService service = new DishService("dd.MM.yyyy", storagePath, baseURI, 3600L);
+        write("2023-45.csv", 60, 0);
+        RetentionSweeper sweeper = new RetentionSweeper.Builder(service).setBatchSize(2).build();
+
+        RetentionSweeper.Sweep sweep = sweeper.sweep();
+
+        assertEquals(3, sweep.deletedFiles());
+        assertEquals(0, sweep.skippedFiles());
+        assertEquals(160, sweep.freedBytes());
+        assertEquals(160, sweeper.getTotalFreedBytes());
+        assertSame(sweep, sweeper.getLastSweep());
+        try (Stream<Path> files = Files.list(storagePath)) {
+            assertEquals(List.of("2023-43.csv456.part", "2023-44.csv", "2023-45.csv"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        assertTrue(service.getStorageManifest().contains(new YearWeek(2023, 45)));
+    }
+
+    @Test
+    void test_deleteOldData_delegatesToSweep() throws IOException {
+        write("2023-40.csv", 100, 7200);
+        DishService service = new DishService("dd.MM.yyyy", storagePath, baseURI, 3600L);
+        assertEquals(100, service.deleteOldData().freedBytes());
+        assertEquals(0, service.deleteOldData().freedBytes());
+    }
+
+    @Test
+    void test_start_publishesSweeps() throws Exception {
+        write("2023-40.csv", 100, 7200);
+        DishService service = new DishService("dd.MM.yyyy", storagePath, baseURI, 3600L);
+        CompletableFuture<RetentionSweeper.Sweep> published = new CompletableFuture<>();
+        try (RetentionSweeper sweeper = new RetentionSweeper.Builder(service).setInterval(Duration.ofHours(1))
+                .setBatchPause(Duration.ZERO).setListener(published::complete).build()) {
+            sweeper.start();
+            assertThrows(IllegalStateException.class, sweeper::start);
+            assertEquals(100, published.get(5, TimeUnit.SECONDS).freedBytes());
+        }
+        assertFalse(Files.exists(storagePath.resolve("2023-40.csv")));
+    }
+
+    @Test
+    void test_start_survivesFailingListener() throws Exception {
+        DishService service = new DishService("dd.MM.yyyy", storagePath, baseURI, 3600L);
+        CountDownLatch sweeps = new CountDownLatch(3);
+        try (RetentionSweeper sweeper = new RetentionSweeper.Builder(service).setInterval(Duration.ofMillis(1))
+                .setBatchPause(Duration.ZERO).setListener(sweep -> {
+                    sweeps.countDown();
+                    throw new IllegalStateException("listener failed");
+                }).build()) {
+            sweeper.start();
+            assertTrue(sweeps.await(5, TimeUnit.SECONDS));
+            assertTrue(sweeper.getFailedSweeps() >= 2);
+        }
+    }
+
+    private void write(final String pName, final int pSize, final long pAgeSeconds) throws IOException {
+        Path file = storagePath.resolve(pName);
+        Files.write(file, new byte[pSize]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - pAgeSeconds * 1000));
+    }
+}
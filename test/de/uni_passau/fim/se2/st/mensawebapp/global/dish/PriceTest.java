@@ -0,0 +1,64 @@
+package de.uni_passau.fim.se2.st.mensawebapp.global.dish;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTest {
+
+    @Test
+    void test_parseCents_germanFormat() {
+        assertEquals(350L, Price.parseCents("3,50"));
+        assertEquals(350L, Price.parseCents("3,5"));
+        assertEquals(300L, Price.parseCents("3"));
+        assertEquals(5L, Price.parseCents(",05"));
+        assertEquals(350L, Price.parseCents("3.50"));
+        assertEquals(350L, Price.parseCents("3,500"));
+        assertEquals(-120L, Price.parseCents("-1,20"));
+        assertEquals(12345678L, Price.parseCents("123456,78"));
+    }
+
+    @Test
+    void test_parseCents_invalid() {
+        for (String value : new String[]{"", ",", "-", "3,505", "3,50 ", "a", "1.000,00", "99999999999999999999"}) {
+            assertThrows(NumberFormatException.class, () -> Price.parseCents(value), value);
+        }
+    }
+
+    @Test
+    void test_parseCents_matchesBigDecimal() {
+        for (String value : new String[]{"0,90", "1,00", "12,3", "4"}) {
+            assertEquals(new BigDecimal(value.replace(",", ".")).compareTo(Price.toBigDecimal(Price.parseCents(value))),
+                    0, value);
+        }
+    }
+
+    @Test
+    void test_toCents_exact() {
+        assertEquals(350L, Price.toCents(new BigDecimal("3.5")));
+        assertEquals(350L, Price.toCents(new BigDecimal("3.500")));
+        assertThrows(ArithmeticException.class, () -> Price.toCents(new BigDecimal("3.505")));
+    }
+
+    @Test
+    void test_price_conversionsAndOrder() {
+        Price price = Price.parse("3,50");
+        assertEquals(new BigDecimal("3.50"), price.toBigDecimal());
+        assertEquals(price, Price.of(new BigDecimal("3.5")));
+        assertTrue(price.compareTo(Price.parse("3,51")) < 0);
+        assertEquals("3,50", price.toString());
+    }
+
+    @Test
+    void test_dish_storesCents() {
+        Dish dish = new Dish.Builder().setType(DishType.MAIN).setName("Suppe")
+                .setStudentPrice(new BigDecimal("2.5")).setStaffPrice(new BigDecimal("3.10"))
+                .setGuestPrice(BigDecimal.valueOf(4)).setDate(LocalDate.of(2023, 12, 1)).build();
+        assertEquals(250L, dish.studentPriceCents());
+        assertEquals(new BigDecimal("2.50"), dish.studentPrice());
+        assertEquals(new BigDecimal("4.00"), dish.guestPrice());
+    }
+}
@@ -0,0 +1,329 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic CSV files in the format of the STWNO for load and scale tests.
+ *
+ * <p>The files have the real columns {@code datum;tag;warengruppe;name;kennz;stud;bed;gast}. Every
+ * weekday of the covered weeks gets a menu of soups, main dishes, sides, and desserts. The names are
+ * combined from word lists, including non-ASCII characters, and are annotated with additives and
+ * allergens whose frequencies roughly follow the real menus: most dishes contain gluten or milk,
+ * few contain nuts or lupines, and about one in three has additives. The tags match the main
+ * ingredient, some dishes are additionally marked as Mensa Vital or organic.
+ *
+ * <p>The output only depends on the seed and the settings of the {@link Builder}, so the same
+ * corpus can be generated again on any machine. The rows are written as they are generated; files
+ * of years of data and millions of rows need no memory beyond the writer's buffer.
+ */
+public final class CSVCorpusGenerator {
+
+    /**
+     * The header line of the generated files.
+     */
+    public static final String HEADER = "datum;tag;warengruppe;name;kennz;stud;bed;gast";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private static final String[] WEEKDAYS = {"Mo", "Di", "Mi", "Do", "Fr"};
+
+    private static final String[] SOUPS = {"Kartoffelsuppe", "Tomatensuppe", "Gemüsebrühe", "Linsensuppe",
+        "Kürbiscremesuppe", "Leberknödelsuppe", "Brokkolicremesuppe", "Flädlesuppe"};
+
+    private static final String[] SIDES = {"Pommes frites", "Salzkartoffeln", "Reis", "Spätzle",
+        "Gemischter Salat", "Kartoffelpüree", "Bratkartoffeln", "Rahmgemüse", "Krautsalat"};
+
+    private static final String[] DESSERTS = {"Apfelstrudel", "Schokopudding", "Tiramisu", "Obstsalat",
+        "Quarkspeise", "Kaiserschmarrn", "Rote Grütze mit Vanillesoße", "Joghurt mit Früchten"};
+
+    private static final String[] GARNISHES = {"Knödel", "Reis", "Nudeln", "Kartoffelsalat", "Spätzle",
+        "Gemüse", "Bratkartoffeln", "Blaukraut", "Püree", "Salat"};
+
+    private static final Main[] MAINS = {
+        new Main("Schweinebraten", "S"), new Main("Schnitzel Wiener Art", "S"),
+        new Main("Leberkäse", "S"), new Main("Rindergulasch", "R"), new Main("Rinderroulade", "R"),
+        new Main("Hähnchenbrust", "G"), new Main("Putengeschnetzeltes", "G"),
+        new Main("Seelachsfilet", "F"), new Main("Fischstäbchen", "F"), new Main("Lammragout", "L"),
+        new Main("Hirschbraten", "W"), new Main("Käsespätzle", "V"), new Main("Gemüselasagne", "V"),
+        new Main("Spinatknödel", "V"), new Main("Gemüsecurry", "VG"), new Main("Falafel", "VG"),
+        new Main("Linsen-Dal", "VG"), new Main("Tofu-Pfanne", "VG")};
+
+    private static final String[] ALLERGENS = {"A", "AA", "AB", "AC", "AD", "AE", "AF", "B", "C", "D", "E", "F",
+        "G", "H", "HA", "HB", "HC", "HD", "HE", "HF", "HG", "HH", "HI", "I", "J", "K", "L", "M", "N", "O"};
+
+    private static final double[] ALLERGEN_FREQUENCIES = {0.45, 0.12, 0.03, 0.03, 0.02, 0.02, 0.01, 0.01, 0.25,
+        0.05, 0.01, 0.06, 0.40, 0.02, 0.02, 0.02, 0.02, 0.01, 0.01, 0.01, 0.01, 0.01, 0.005, 0.15, 0.12, 0.04,
+        0.04, 0.01, 0.01, 0.01};
+
+    private static final double[] ADDITIVE_FREQUENCIES = {0.08, 0.15, 0.12, 0.05, 0.02, 0.02, 0.02, 0.06, 0.02,
+        0.02, 0.01, 0.01, 0.01, 0.01, 0.01, 0.01, 0.01};
+
+    private final long seed;
+
+    private final LocalDate startDate;
+
+    private final int weeks;
+
+    private final int dishesPerDay;
+
+    private final String lineSeparator;
+
+    private CSVCorpusGenerator(final Builder pBuilder) {
+        seed = pBuilder.seed;
+        startDate = pBuilder.startDate;
+        weeks = pBuilder.weeks;
+        dishesPerDay = pBuilder.dishesPerDay;
+        lineSeparator = pBuilder.lineSeparator;
+    }
+
+    /**
+     * Writes the corpus to a file, replacing an existing one.
+     *
+     * @param pFile The file to write
+     * @return The number of data rows written
+     * @throws IOException In case of I/O errors
+     */
+    public long write(final Path pFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(pFile, StandardCharsets.UTF_8)) {
+            return write(writer);
+        }
+    }
+
+    /**
+     * Writes the corpus to a writer, which is not closed.
+     *
+     * @param pWriter The writer
+     * @return The number of data rows written
+     * @throws IOException In case of I/O errors
+     */
+    public long write(final Writer pWriter) throws IOException {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final StringBuilder line = new StringBuilder(128);
+        pWriter.write(HEADER);
+        pWriter.write(lineSeparator);
+        long rows = 0;
+        for (LocalDate date = startDate; date.isBefore(startDate.plusWeeks(weeks)); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            final String prefix = DATE_FORMATTER.format(date) + ';' + WEEKDAYS[date.getDayOfWeek().ordinal()] + ';';
+            final int dishes = Math.max(1, dishesPerDay - 2 + random.nextInt(5));
+            for (int i = 0; i < dishes; i++) {
+                line.setLength(0);
+                line.append(prefix);
+                appendDish(line, random, i, dishes);
+                line.append(lineSeparator);
+                pWriter.append(line);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Generates the corpus in memory, e.g., to serve it from a {@link LocalCSVServer}.
+     *
+     * @return The UTF-8 encoded content of the corpus
+     */
+    public byte[] toBytes() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends the columns from {@code warengruppe} to {@code gast} of one dish.
+     *
+     * <p>A tenth of the menu are soups, half are main dishes, and the rest is split between sides
+     * and desserts.
+     */
+    private static void appendDish(final StringBuilder pLine, final SplittableRandom pRandom, final int pIndex,
+                                   final int pDishes) {
+        final int soups = Math.max(1, pDishes / 10);
+        final int mains = Math.max(1, pDishes / 2);
+        final int sides = (pDishes - soups - mains + 1) / 2;
+        final String group;
+        final String name;
+        String tag;
+        final int baseCents;
+        if (pIndex < soups) {
+            group = "Suppe";
+            name = pick(SOUPS, pRandom);
+            tag = pRandom.nextDouble() < 0.6 ? "V" : "VG";
+            baseCents = 60;
+        } else if (pIndex < soups + mains) {
+            final Main main = MAINS[pRandom.nextInt(MAINS.length)];
+            group = "HG" + (pIndex - soups + 1);
+            name = main.name() + " mit " + pick(GARNISHES, pRandom);
+            tag = main.tag();
+            baseCents = 220;
+        } else if (pIndex < soups + mains + sides) {
+            group = "B" + (pIndex - soups - mains + 1);
+            name = pick(SIDES, pRandom);
+            tag = "VG";
+            baseCents = 60;
+        } else {
+            group = "N" + (pIndex - soups - mains - sides + 1);
+            name = pick(DESSERTS, pRandom);
+            tag = "V";
+            baseCents = 80;
+        }
+        if (pRandom.nextDouble() < 0.1) {
+            tag += ",MV";
+        }
+        if (pRandom.nextDouble() < 0.05) {
+            tag += ",B";
+        }
+
+        pLine.append(group).append(';').append(name);
+        appendAnnotation(pLine, pRandom);
+        pLine.append(';').append(tag).append(';');
+        final int student = baseCents + 10 * pRandom.nextInt(baseCents / 8);
+        final int employee = student + 10 * (4 + pRandom.nextInt(9));
+        final int guest = employee + 10 * (5 + pRandom.nextInt(9));
+        appendPrice(pLine, student).append(';');
+        appendPrice(pLine, employee).append(';');
+        appendPrice(pLine, guest);
+    }
+
+    private static void appendAnnotation(final StringBuilder pLine, final SplittableRandom pRandom) {
+        final List<String> tokens = new ArrayList<>();
+        if (pRandom.nextDouble() < 0.35) {
+            for (int i = 0; i < ADDITIVE_FREQUENCIES.length; i++) {
+                if (pRandom.nextDouble() < ADDITIVE_FREQUENCIES[i] * 2.5) {
+                    tokens.add(Integer.toString(i + 1));
+                }
+            }
+        }
+        for (int i = 0; i < ALLERGENS.length; i++) {
+            if (pRandom.nextDouble() < ALLERGEN_FREQUENCIES[i]) {
+                tokens.add(ALLERGENS[i]);
+            }
+        }
+        if (!tokens.isEmpty()) {
+            pLine.append(" (").append(String.join(",", tokens)).append(')');
+        }
+    }
+
+    private static StringBuilder appendPrice(final StringBuilder pLine, final int pCents) {
+        pLine.append(pCents / 100).append(',');
+        if (pCents % 100 < 10) {
+            pLine.append('0');
+        }
+        return pLine.append(pCents % 100);
+    }
+
+    private static String pick(final String[] pValues, final SplittableRandom pRandom) {
+        return pValues[pRandom.nextInt(pValues.length)];
+    }
+
+    /**
+     * A main ingredient and the tag it implies.
+     */
+    private record Main(String name, String tag) {
+    }
+
+    /**
+     * A builder for {@link CSVCorpusGenerator}s.
+     */
+    public static class Builder {
+
+        private final long seed;
+
+        private LocalDate startDate = LocalDate.of(2023, 1, 2);
+
+        private int weeks = 1;
+
+        private int dishesPerDay = 12;
+
+        private String lineSeparator = "\n";
+
+        /**
+         * Instantiates a new builder for a generator with the given seed.
+         *
+         * @param pSeed The seed of the generated corpus
+         */
+        public Builder(final long pSeed) {
+            seed = pSeed;
+        }
+
+        /**
+         * Sets the first day of the corpus, defaults to Monday, 2 January 2023.
+         *
+         * @param pStartDate The first day
+         * @return The instance of the builder
+         */
+        public Builder setStartDate(final LocalDate pStartDate) {
+            startDate = Preconditions.checkNotNull(pStartDate);
+            return this;
+        }
+
+        /**
+         * Sets the number of weeks covered by the corpus, defaults to one week.
+         *
+         * <p>A week has five weekdays with a menu, so a year has 260 menus.
+         *
+         * @param pWeeks The number of weeks, must be positive
+         * @return The instance of the builder
+         */
+        public Builder setWeeks(final int pWeeks) {
+            Preconditions.checkArgument(pWeeks > 0, "Weeks must be positive.");
+            weeks = pWeeks;
+            return this;
+        }
+
+        /**
+         * Sets the average number of dishes per day, defaults to 12.
+         *
+         * <p>The number of dishes of a day varies by up to two around the average. For millions of
+         * rows, combine years of weeks with large menus, e.g., 520 weeks of 400 dishes.
+         *
+         * @param pDishesPerDay The average number of dishes, must be positive
+         * @return The instance of the builder
+         */
+        public Builder setDishesPerDay(final int pDishesPerDay) {
+            Preconditions.checkArgument(pDishesPerDay > 0, "Dishes per day must be positive.");
+            dishesPerDay = pDishesPerDay;
+            return this;
+        }
+
+        /**
+         * Sets the line separator, defaults to {@code \n}.
+         *
+         * @param pLineSeparator The line separator, e.g., {@code \r\n}
+         * @return The instance of the builder
+         */
+        public Builder setLineSeparator(final String pLineSeparator) {
+            lineSeparator = Preconditions.checkNotNull(pLineSeparator);
+            return this;
+        }
+
+        /**
+         * Builds the generator.
+         *
+         * @return The new generator
+         */
+        public CSVCorpusGenerator build() {
+            return new CSVCorpusGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVCorpusGeneratorTest {
+
+    @Test
+    void test_toBytes_deterministic() {
+        byte[] first = new CSVCorpusGenerator.Builder(7).setWeeks(4).build().toBytes();
+        assertArrayEquals(first, new CSVCorpusGenerator.Builder(7).setWeeks(4).build().toBytes());
+        assertFalse(Arrays.equals(first, new CSVCorpusGenerator.Builder(8).setWeeks(4).build().toBytes()));
+    }
+
+    @Test
+    void test_write_parsesIntoRealisticDishes(@TempDir Path storagePath) throws IOException {
+        LocalDate start = LocalDate.of(2023, 11, 26);
+        CSVCorpusGenerator generator = new CSVCorpusGenerator.Builder(42).setStartDate(start).setWeeks(52)
+                .setDishesPerDay(20).setLineSeparator("\r\n").build();
+        Path file = storagePath.resolve("corpus.csv");
+        long rows = generator.write(file);
+        assertTrue(rows >= 52 * 5 * 18 && rows <= 52 * 5 * 22, "rows: " + rows);
+
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serve(new YearWeek(2023, 48), Files.readAllBytes(file));
+            CSVFile csvFile = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+            List<Dish> dishes = new CSVParser(csvFile, DateTimeFormatter.ofPattern("dd.MM.yyyy")).parseDishes();
+            assertEquals(rows, dishes.size());
+            for (Dish dish : dishes) {
+                assertNotNull(dish.type());
+                assertFalse(dish.name().contains("("));
+                assertFalse(dish.tags().isEmpty());
+                assertFalse(dish.date().isBefore(start) || !dish.date().isBefore(start.plusWeeks(52)));
+                assertFalse(dish.date().getDayOfWeek() == DayOfWeek.SATURDAY
+                        || dish.date().getDayOfWeek() == DayOfWeek.SUNDAY);
+                assertTrue(dish.studentPrice().compareTo(dish.guestPrice()) < 0);
+            }
+            long gluten = dishes.stream().filter(dish -> dish.allergens().contains(Allergen.A)).count();
+            long lupines = dishes.stream().filter(dish -> dish.allergens().contains(Allergen.M)).count();
+            assertTrue(gluten > rows / 3 && lupines < rows / 20, "gluten: " + gluten + ", lupines: " + lupines);
+            assertTrue(dishes.stream().anyMatch(dish -> !dish.additives().isEmpty()));
+            assertTrue(dishes.stream().anyMatch(dish -> dish.name().contains("ü")));
+        }
+    }
+}
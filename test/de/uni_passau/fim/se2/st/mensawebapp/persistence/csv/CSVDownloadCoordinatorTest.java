@@ -0,0 +1,124 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVDownloadCoordinatorTest {
+
+    @TempDir
+    private Path correctPath;
+
+    private LocalCSVServer server;
+
+    private final YearWeek yearWeek = new YearWeek(2023, 48);
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new LocalCSVServer();
+        server.serveResource(yearWeek, "2023-48.csv");
+    }
+
+    @AfterEach
+    void cleanup() {
+        server.close();
+    }
+
+    @Test
+    void test_download_concurrentDownloadsAreCoalesced() throws Exception {
+        server.setResponseDelay(300);
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+                results.add(executor.submit((Callable<Boolean>) () -> coordinator.download(file)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(server.getFullResponses() < 8);
+        assertFalse(coordinator.isDownloading(yearWeek));
+    }
+
+    @Test
+    void test_download_sequentialDownloadsAreNotCoalesced() throws IOException {
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+        assertTrue(coordinator.download(file));
+        assertTrue(coordinator.download(file));
+        assertEquals(2, server.getFullResponses());
+    }
+
+    @Test
+    void test_download_leavesNoTemporaryFiles() throws IOException {
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+        coordinator.download(file);
+        coordinator.download(file);
+        try (Stream<Path> files = Files.list(correctPath)) {
+            assertEquals(List.of(file.provideFile().toPath()), files.toList());
+        }
+    }
+
+    @Test
+    void test_download_failedDownloadKeepsPreviousCopy() throws IOException {
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+        coordinator.download(file);
+        byte[] previous = Files.readAllBytes(file.provideFile().toPath());
+        server.serve(yearWeek, new byte[0]);
+        assertFalse(coordinator.download(file));
+        assertArrayEquals(previous, Files.readAllBytes(file.provideFile().toPath()));
+    }
+
+    @Test
+    void test_delete_deferredWhileLeased() throws IOException {
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+        coordinator.download(file);
+        try (CSVDownloadCoordinator.Lease lease = coordinator.lease(yearWeek)) {
+            assertTrue(coordinator.isLeased(yearWeek));
+            assertFalse(coordinator.delete(file));
+            assertTrue(file.exists());
+        }
+        assertFalse(coordinator.isLeased(yearWeek));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void test_deleteIfUnused_skipsLeasedFile() throws IOException {
+        CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+        CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+        coordinator.download(file);
+        CSVDownloadCoordinator.Lease first = coordinator.lease(yearWeek);
+        CSVDownloadCoordinator.Lease second = coordinator.lease(yearWeek);
+        assertFalse(coordinator.deleteIfUnused(file));
+        first.close();
+        first.close();
+        assertTrue(coordinator.isLeased(yearWeek));
+        second.close();
+        assertTrue(file.exists());
+        assertFalse(coordinator.deleteIfUnused(file, 60));
+        assertTrue(coordinator.deleteIfUnused(file));
+        assertFalse(file.exists());
+    }
+}
@@ -16,6 +16,7 @@
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
@@ -162,4 +163,76 @@ void test_delete_withAge_fullyDeleted() throws InterruptedException, IOException
     void test_provideFile() {
         assertEquals(testFile, downloadedFile.provideFile());
     }
+
+    @Test
+    void test_getYearWeek() {
+        assertEquals(new YearWeek(validYear, validWeekOfYear), downloadedFile.getYearWeek());
+    }
+
+    @Test
+    void test_download_revalidation_notModifiedKeepsLocalCopy() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(yearWeek, "2023-48.csv");
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48, CSVValidatorStore.inMemory());
+            assertTrue(file.download());
+            assertTrue(file.download());
+            assertTrue(file.download());
+            assertEquals(1, server.getFullResponses());
+            assertEquals(2, server.getNotModifiedResponses());
+            assertTrue(file.exists());
+        }
+    }
+
+    @Test
+    void test_download_revalidation_changedFileIsDownloaded() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(yearWeek, "2023-48.csv");
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48, CSVValidatorStore.inMemory());
+            assertTrue(file.download());
+            server.serve(yearWeek, "datum;name\n01.12.2023;Neu\n".getBytes(StandardCharsets.UTF_8));
+            assertTrue(file.download());
+            assertEquals(2, server.getFullResponses());
+            assertEquals("datum;name\n01.12.2023;Neu\n", Files.readString(file.provideFile().toPath()));
+        }
+    }
+
+    @Test
+    void test_download_revalidation_deletedLocalCopyIsDownloaded() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(yearWeek, "2023-48.csv");
+            CSVValidatorStore validatorStore = CSVValidatorStore.inMemory();
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48, validatorStore);
+            file.download();
+            assertTrue(validatorStore.get(yearWeek).isPresent());
+            file.delete();
+            assertTrue(validatorStore.get(yearWeek).isEmpty());
+            assertTrue(file.download());
+            assertEquals(2, server.getFullResponses());
+            assertTrue(file.exists());
+        }
+    }
+
+    @Test
+    void test_download_withoutRevalidation_alwaysDownloads() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(yearWeek, "2023-48.csv");
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+            file.download();
+            file.download();
+            assertEquals(2, server.getFullResponses());
+            assertEquals(0, server.getNotModifiedResponses());
+        }
+    }
+
+    @Test
+    void test_download_revalidation_unknownWeek() throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 1999, 48, CSVValidatorStore.inMemory());
+            assertFalse(file.download());
+        }
+    }
 }
@@ -14,15 +14,19 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive.getAdditiveForIndex;
 import static de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen.getAllergenForToken;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CSVParserTest {
 
@@ -63,6 +67,40 @@ void test_parseDishes_correctFile() throws IOException, URISyntaxException {
         }
     }
 
+    @Test
+    void test_parseDishes_localFile() throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+            List<Dish> dishes = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy")).parseDishes();
+            assertEquals(19, dishes.size());
+            Dish dish = dishes.get(1);
+            assertEquals(DishType.MAIN, dish.type());
+            assertEquals("Schweinebraten mit Knödel", dish.name());
+            assertEquals(Set.of(Additive.B, Additive.C), dish.additives());
+            assertEquals(Set.of(Allergen.A, Allergen.C, Allergen.G), dish.allergens());
+            assertEquals(Set.of(Tag.S), dish.tags());
+            assertEquals(new BigDecimal("3.50"), dish.studentPrice());
+            assertEquals(new BigDecimal("4.70"), dish.staffPrice());
+            assertEquals(new BigDecimal("5.90"), dish.guestPrice());
+            assertEquals(LocalDate.of(2023, 11, 27), dish.date());
+            assertEquals(Set.of(Tag.VG, Tag.MV), dishes.get(13).tags());
+            assertEquals(Set.of(Allergen.A, Allergen.K, Allergen.HA), dishes.get(13).allergens());
+            assertEquals("Pommes frites", dishes.get(3).name());
+            assertEquals(Set.of(), dishes.get(3).allergens());
+        }
+    }
+
+    @Test
+    void test_parseDishes_missingColumn() throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serve(new YearWeek(2023, 48), "datum;name\n01.12.2023;Suppe\n".getBytes(StandardCharsets.UTF_8));
+            CSVFile file = new CSVFile(correctPath, server.getBaseURI(), 2023, 48);
+            CSVParser csvParser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            assertThrows(CSVParserException.class, csvParser::parseDishes);
+        }
+    }
+
     private BigDecimal getBigDecimal(CSVReader.CSVRow row, String pers) {
         return new BigDecimal(row.get(pers).replaceAll(",", "."));
     }
@@ -127,4 +165,87 @@ private DishType getDishtype(CSVReader.CSVRow row) {
             default -> null;
         };
     }
+
+    @Test
+    void test_parseDishes_mappedLocalCopyEqualsStream(@TempDir Path storagePath) throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48,
+                    new CSVStorageManifest(storagePath, server.getBaseURI()));
+            CSVParser parser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            List<Dish> streamed = parser.parseDishes();
+            List<Dish> mapped = parser.parseDishes();
+            assertEquals(1, server.getFullResponses());
+            assertEquals(1, server.getNotModifiedResponses());
+            assertEquals(streamed, mapped);
+            assertEquals("Schweinebraten mit Knödel", mapped.get(1).name());
+        }
+    }
+
+    @Test
+    void test_parse_dishesBeforeCommit(@TempDir Path storagePath) throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+            List<Boolean> committed = new ArrayList<>();
+            new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy")).parse(dish -> committed.add(file.exists()));
+            assertEquals(Collections.nCopies(19, false), committed);
+            assertTrue(file.exists());
+            assertEquals(1, server.getFullResponses());
+        }
+    }
+
+    @Test
+    void test_parse_failedParseKeepsPreviousCopy(@TempDir Path storagePath) throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            YearWeek yearWeek = new YearWeek(2023, 48);
+            server.serveResource(yearWeek, "2023-48.csv");
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+            CSVParser parser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            assertEquals(19, parser.parseDishes().size());
+            byte[] previous = Files.readAllBytes(file.provideFile().toPath());
+            server.serve(yearWeek, ("datum;tag;warengruppe;name;kennz;stud;bed;gast\n"
+                    + "01.12.2023;Fr;HG1;Nudeln (A);V;2,00;3,00;4,00\n"
+                    + "01.12.2023;Fr;HG2;Reis;V;zwei;3,00;4,00\n").getBytes(StandardCharsets.UTF_8));
+            List<Dish> partial = new ArrayList<>();
+            assertThrows(NumberFormatException.class, () -> parser.parse(partial::add));
+            assertEquals(1, partial.size());
+            assertArrayEquals(previous, Files.readAllBytes(file.provideFile().toPath()));
+            try (Stream<Path> files = Files.list(storagePath)) {
+                assertEquals(List.of(file.provideFile().toPath()), files.toList());
+            }
+        }
+    }
+
+    @Test
+    void test_parseDishesParallel_equalsSequential(@TempDir Path storagePath) throws IOException {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+            CSVParser parser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            List<Dish> expected = parser.parseDishes();
+            for (int parallelism = 1; parallelism <= 8; parallelism++) {
+                assertEquals(expected, parser.parseDishesParallel(parallelism));
+            }
+        }
+    }
+
+    @Test
+    void test_parseDishesParallel_largeFile(@TempDir Path storagePath) throws IOException {
+        StringBuilder content = new StringBuilder("datum;tag;warengruppe;name;kennz;stud;bed;gast\r\n");
+        for (int i = 0; i < 5000; i++) {
+            content.append(String.format("%02d.12.2023;Mo;HG%d;Gemüsepfanne %d (A,G);V,VG;%d,%02d;4,00;5,00\r\n",
+                    i % 28 + 1, i % 3, i, i % 10, i % 100));
+        }
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serve(new YearWeek(2023, 49), content.toString().getBytes(StandardCharsets.UTF_8));
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 49);
+            CSVParser parser = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            List<Dish> expected = parser.parseDishes();
+            List<Dish> dishes = parser.parseDishesParallel(7);
+            assertEquals(5000, dishes.size());
+            assertEquals(expected, dishes);
+            assertEquals("Gemüsepfanne 4999", dishes.get(4999).name());
+        }
+    }
 }
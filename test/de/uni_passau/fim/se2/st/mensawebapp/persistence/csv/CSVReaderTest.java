@@ -9,6 +9,8 @@
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -18,6 +20,7 @@
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 public class CSVReaderTest {
 
@@ -113,4 +116,77 @@ void test_iterator_For_CorrectFile() throws IOException {
             assertEquals(hashMapList, testHashMaplist);
         }
     }
+
+    @Test
+    void test_iterator_readsHeaderOnce() {
+        BufferedReader reader = new BufferedReader(new StringReader("datum;name\n01.12.2023;Suppe\n02.12.2023;Salat\n"));
+        List<Map<String, String>> rows = new LinkedList<>();
+        new CSVReader(reader).forEach(row -> rows.add(row.getEntryMap()));
+        assertEquals(List.of(Map.of("datum", "01.12.2023", "name", "Suppe"),
+                Map.of("datum", "02.12.2023", "name", "Salat")), rows);
+    }
+
+    @Test
+    void test_iterator_isLazy() {
+        Reader endless = new Reader() {
+            private final char[] line = "01.12.2023;Suppe\n".toCharArray();
+            private int position;
+
+            @Override
+            public int read(char[] pBuffer, int pOffset, int pLength) {
+                for (int i = 0; i < pLength; i++) {
+                    pBuffer[pOffset + i] = line[position++ % line.length];
+                }
+                return pLength;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        BufferedReader reader = new BufferedReader(new SequenceReader(new StringReader("datum;name\n"), endless));
+        Iterator<CSVReader.CSVRow> iterator = new CSVReader(reader).iterator();
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals("Suppe", iterator.next().get("name"));
+        }
+    }
+
+    @Test
+    void test_iterator_headerOnly() {
+        BufferedReader reader = new BufferedReader(new StringReader("datum;name\n"));
+        assertFalse(new CSVReader(reader).iterator().hasNext());
+    }
+
+    /**
+     * Concatenates two readers.
+     */
+    private static final class SequenceReader extends Reader {
+
+        private final Reader first;
+        private final Reader second;
+        private boolean firstExhausted;
+
+        private SequenceReader(Reader pFirst, Reader pSecond) {
+            first = pFirst;
+            second = pSecond;
+        }
+
+        @Override
+        public int read(char[] pBuffer, int pOffset, int pLength) throws IOException {
+            if (!firstExhausted) {
+                int read = first.read(pBuffer, pOffset, pLength);
+                if (read >= 0) {
+                    return read;
+                }
+                firstExhausted = true;
+            }
+            return second.read(pBuffer, pOffset, pLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            first.close();
+            second.close();
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVRecordTest {
+
+    private static Iterator<CSVRecord> records(String pContent) {
+        return new CSVReader(new BufferedReader(new StringReader(pContent))).records();
+    }
+
+    private static Iterator<CSVRecord> byteRecords(String pContent) {
+        return new CSVReader(ByteBuffer.wrap(pContent.getBytes(StandardCharsets.UTF_8))).records();
+    }
+
+    private static List<List<String>> values(Iterator<CSVRecord> pRecords) {
+        List<List<String>> rows = new ArrayList<>();
+        pRecords.forEachRemaining(record -> rows.add(IntStream.range(0, record.size())
+                .mapToObj(i -> record.get(i).toString()).collect(Collectors.toList())));
+        return rows;
+    }
+
+    @Test
+    void test_schema_resolvesColumns() {
+        CSVSchema schema = new CSVSchema(List.of("datum", "name", "datum"));
+        assertEquals(0, schema.indexOf("datum"));
+        assertEquals(1, schema.indexOf("name"));
+        assertEquals(-1, schema.indexOf("stud"));
+        assertEquals(3, schema.size());
+    }
+
+    @Test
+    void test_records_compileHeaderOnce() {
+        Iterator<CSVRecord> records = records("datum;name\n01.12.2023;Suppe\n02.12.2023;Salat\n");
+        CSVRecord first = records.next();
+        CSVSchema schema = first.getSchema();
+        assertEquals(List.of("datum", "name"), schema.getFieldNames());
+        assertEquals("Suppe", first.get(1).toString());
+        CSVRecord second = records.next();
+        assertSame(first, second);
+        assertSame(schema, second.getSchema());
+        assertEquals("Salat", second.getString(schema.indexOf("name")));
+        assertFalse(records.hasNext());
+    }
+
+    @Test
+    void test_records_valuesMatchStringSplit() {
+        for (String line : List.of("a;b;c", "a;;c", "a;b;;", ";a", ";;", "", "abc", ";")) {
+            CSVRecord record = records("h1;h2;h3\n" + line + "\n").next();
+            String[] expected = line.split(";");
+            String[] actual = new String[record.size()];
+            for (int i = 0; i < actual.length; i++) {
+                actual[i] = record.getString(i);
+            }
+            assertArrayEquals(expected, actual, () -> "line " + line + " was " + Arrays.toString(actual));
+        }
+    }
+
+    @Test
+    void test_records_lineTerminators() {
+        Iterator<CSVRecord> records = records("h\r\na\rb\nc");
+        assertEquals("a", records.next().getString(0));
+        assertEquals("b", records.next().getString(0));
+        assertEquals("c", records.next().getString(0));
+        assertFalse(records.hasNext());
+    }
+
+    @Test
+    void test_records_longLinesGrowTheBuffer() {
+        String name = "x".repeat(100_000);
+        Iterator<CSVRecord> records = records("datum;name\n01.12.2023;" + name + "\n02.12.2023;y\n");
+        CSVRecord record = records.next();
+        assertEquals(name.length(), record.length(1));
+        assertEquals(name, record.getString(1));
+        assertEquals("y", records.next().getString(1));
+    }
+
+    @Test
+    void test_record_missingValues() {
+        CSVRecord record = records("datum;name;kennz\n01.12.2023\n").next();
+        assertNull(record.get(1));
+        assertNull(record.get("kennz"));
+        assertNull(record.getString(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> record.charAt(1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> record.charAt(0, 10));
+    }
+
+    @Test
+    void test_record_toRowSurvivesNextRecord() {
+        Iterator<CSVRecord> records = records("datum;name\n01.12.2023;Suppe\n02.12.2023;Salat\n");
+        CSVReader.CSVRow row = records.next().toRow();
+        records.next();
+        assertEquals("Suppe", row.get("name"));
+        assertEquals(2, row.getEntryMap().size());
+    }
+
+    @Test
+    void test_byteRecords_equalCharRecords() {
+        for (String content : List.of("h1;h2;h3\na;b;c\na;;c\na;b;;\n;a\n;;\n\nabc\n;",
+                "datum;name\r\n01.12.2023;Knödel mit Soße\r02.12.2023;Crème brûlée\n03.12.2023;€\r\n",
+                "h", "")) {
+            assertEquals(values(records(content)), values(byteRecords(content)), content);
+        }
+    }
+
+    @Test
+    void test_byteRecords_decodeOnlyNonAsciiValues() {
+        CSVRecord record = byteRecords("datum;name;stud\n01.12.2023;Knödel;3,50\n").next();
+        assertFalse(record.get(0) instanceof String);
+        assertEquals("01.12.2023", record.get(0).toString());
+        assertEquals("2023", record.get(0).subSequence(6, 10).toString());
+        assertEquals("Knödel", record.get(1).toString());
+        assertEquals("Knödel", record.getString(1));
+        assertEquals('3', record.charAt(2, 0));
+        assertEquals(4, record.length(2));
+    }
+
+    @Test
+    void test_byteRecords_multiCharacterDelimiter() {
+        ByteBuffer bytes = ByteBuffer.wrap("a::b\nä::::c".getBytes(StandardCharsets.UTF_8));
+        Iterator<CSVRecord> records = new CSVReader(bytes, "::").records();
+        CSVRecord record = records.next();
+        assertEquals(List.of("ä", "", "c"), List.of(record.getString(0), record.getString(1), record.getString(2)));
+        assertEquals(List.of("a", "b"), new CSVReader(bytes, "::").getFieldNames());
+    }
+}
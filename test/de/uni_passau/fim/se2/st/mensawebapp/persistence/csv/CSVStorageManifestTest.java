@@ -0,0 +1,124 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVStorageManifestTest {
+
+    private static final URI SOURCE = URI.create("http://localhost/");
+
+    @TempDir
+    Path storagePath;
+
+    @Test
+    void test_recover_ignoresTemporaryAndForeignFiles() throws IOException {
+        write("2023-48.csv", 100, 0);
+        write("2023-48.snap", 20, 0);
+        write("2023-49.csv1234.part", 50, 0);
+        write("notes.csv", 10, 0);
+        write("2023-60.csv", 10, 0);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        assertEquals(List.of(new YearWeek(2023, 48)),
+                manifest.getEntries().stream().map(CSVStorageManifest.Entry::yearWeek).toList());
+        assertEquals(120, manifest.getTotalSize());
+    }
+
+    @Test
+    void test_recover_validatorsOfSameSource() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        write("2023-48.csv", 100, 0);
+        CSVValidators validators = new CSVValidators("\"v1\"", "Fri, 01 Dec 2023 10:00:00 GMT");
+        new CSVStorageManifest(storagePath, SOURCE).put(yearWeek, validators);
+        assertEquals(Optional.of(validators), new CSVStorageManifest(storagePath, SOURCE).get(yearWeek));
+        assertTrue(new CSVStorageManifest(storagePath, URI.create("http://example.org/")).get(yearWeek).isEmpty());
+    }
+
+    @Test
+    void test_forget_deletesManifestWithoutValidators() throws IOException {
+        YearWeek yearWeek = new YearWeek(2023, 48);
+        write("2023-48.csv", 100, 0);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        manifest.put(yearWeek, new CSVValidators("\"v1\"", null));
+        assertTrue(Files.exists(storagePath.resolve(CSVStorageManifest.MANIFEST_FILE_NAME)));
+        Files.delete(storagePath.resolve("2023-48.csv"));
+        manifest.forget(yearWeek);
+        assertTrue(manifest.getEntries().isEmpty());
+        assertFalse(Files.exists(storagePath.resolve(CSVStorageManifest.MANIFEST_FILE_NAME)));
+    }
+
+    @Test
+    void test_selectEvictions_oldFilesFirst() throws IOException {
+        write("2023-47.csv", 100, 120);
+        write("2023-48.csv", 100, 0);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        assertEquals(List.of(new YearWeek(2023, 47)), manifest.selectEvictions(60, 1000));
+        assertEquals(List.of(), manifest.selectEvictions(600, 1000));
+    }
+
+    @Test
+    void test_selectEvictions_leastRecentlyUsedBeyondBudget() throws IOException, InterruptedException {
+        write("2023-47.csv", 100, 30);
+        write("2023-48.csv", 100, 20);
+        write("2023-49.csv", 100, 10);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        Thread.sleep(5);
+        manifest.touch(new YearWeek(2023, 47));
+        assertEquals(List.of(new YearWeek(2023, 48)), manifest.selectEvictions(600, 200));
+        assertEquals(List.of(new YearWeek(2023, 48), new YearWeek(2023, 49)), manifest.selectEvictions(600, 199));
+        Files.delete(storagePath.resolve("2023-48.csv"));
+        assertEquals(List.of(), manifest.selectEvictions(600, 200));
+        assertEquals(200, manifest.getTotalSize());
+    }
+
+    @Test
+    void test_planEvictions_checksFilesLazily() throws IOException, InterruptedException {
+        write("2023-47.csv", 100, 30);
+        write("2023-48.csv", 100, 20);
+        write("2023-49.csv", 100, 10);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        Thread.sleep(5);
+        manifest.touch(new YearWeek(2023, 49));
+        Thread.sleep(5);
+        manifest.touch(new YearWeek(2023, 47));
+        Iterator<YearWeek> plan = manifest.planEvictions(600, 100);
+        Files.delete(storagePath.resolve("2023-48.csv"));
+        assertEquals(3, manifest.getEntries().size());
+        assertEquals(new YearWeek(2023, 49), plan.next());
+        assertFalse(plan.hasNext());
+        assertEquals(200, manifest.getTotalSize());
+    }
+
+    @Test
+    void test_recordAccess_throttledLeastRecentlyUsed() throws IOException {
+        write("2023-47.csv", 100, 300);
+        write("2023-48.csv", 100, 200);
+        write("2023-49.csv", 100, 100);
+        CSVStorageManifest manifest = new CSVStorageManifest(storagePath, SOURCE);
+        manifest.recordAccess(new YearWeek(2023, 47));
+        manifest.recordAccess(new YearWeek(2023, 50));
+        assertEquals(List.of(new YearWeek(2023, 48)), manifest.selectEvictions(600, 200));
+
+        long lastAccess = manifest.getEntry(new YearWeek(2023, 47)).orElseThrow().lastAccess();
+        assertTrue(System.currentTimeMillis() - lastAccess < CSVStorageManifest.ACCESS_RESOLUTION_MILLIS);
+        manifest.recordAccess(new YearWeek(2023, 47));
+        assertEquals(lastAccess, manifest.getEntry(new YearWeek(2023, 47)).orElseThrow().lastAccess());
+        assertEquals(3, manifest.getEntries().size());
+    }
+
+    private void write(final String pName, final int pSize, final long pAgeSeconds) throws IOException {
+        Path file = storagePath.resolve(pName);
+        Files.write(file, new byte[pSize]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - pAgeSeconds * 1000));
+    }
+}
@@ -0,0 +1,96 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Additive;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Allergen;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.EnumMasks;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DishNameDecoderTest {
+
+    @Test
+    void test_decode_plainName() {
+        DishNameDecoder.DecodedName decoded = DishNameDecoder.decode("  Pommes frites ");
+        assertEquals("Pommes frites", decoded.name());
+        assertEquals(0L, decoded.additives());
+        assertEquals(0L, decoded.allergens());
+    }
+
+    @Test
+    void test_decode_annotatedName() {
+        DishNameDecoder.DecodedName decoded = DishNameDecoder.decode("Rindergulasch mit Nudeln (1,A,AA,C,17,18,XY)");
+        assertEquals("Rindergulasch mit Nudeln", decoded.name());
+        assertEquals(EnumMasks.of(Set.of(Additive.A, Additive.Q)), decoded.additives());
+        assertEquals(EnumMasks.of(Set.of(Allergen.A, Allergen.AA, Allergen.C)), decoded.allergens());
+    }
+
+    @Test
+    void test_decode_onlyFirstAnnotation() {
+        DishNameDecoder.DecodedName decoded = DishNameDecoder.decode("Suppe (vegan) (A,G)");
+        assertEquals("Suppe", decoded.name());
+        assertEquals(0L, decoded.allergens());
+    }
+
+    @Test
+    void test_decode_matchesRegexSplitting() {
+        String[] names = {"Kartoffelsuppe (A,G,I)", "Salat (1,2,J)", "Linsen(2, 3,8 ,I,J)", "Brot (02,A)",
+            "Suppe (vegan) (A,G)", "(A)", "Tiramisu (A,C,G,4)", "Pasta (HB,HC,HZ,ABC)", "Reis ()", "Nudeln (a,b,G)"};
+        for (String name : names) {
+            DishNameDecoder.DecodedName decoded = DishNameDecoder.decode(name);
+            assertEquals(regexName(name), decoded.name(), name);
+            assertEquals(EnumMasks.of(regexAdditives(name)), decoded.additives(), name);
+            assertEquals(EnumMasks.of(regexAllergens(name)), decoded.allergens(), name);
+        }
+    }
+
+    @Test
+    void test_decode_pathologicalInputs() {
+        String longName = "Eintopf ".repeat(200_000) + "(" + "1,A,".repeat(200_000) + "9".repeat(10_000) + ")";
+        String nested = "Suppe " + "(".repeat(500_000) + "A" + ")".repeat(500_000);
+        String unclosed = "Suppe (";
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            DishNameDecoder.DecodedName decoded = DishNameDecoder.decode(longName);
+            assertEquals(EnumMasks.of(Set.of(Additive.A)), decoded.additives());
+            assertEquals(EnumMasks.of(Set.of(Allergen.A)), decoded.allergens());
+            assertEquals(0L, DishNameDecoder.decode(nested).allergens());
+            assertEquals("Suppe", DishNameDecoder.decode(unclosed).name());
+        });
+    }
+
+    @Test
+    void test_decodeTags() {
+        assertEquals(EnumMasks.of(Set.of(Tag.VG, Tag.MV)), DishNameDecoder.decodeTags("VG,MV"));
+        assertEquals(EnumMasks.of(Set.of(Tag.V)), DishNameDecoder.decodeTags("V,,X, S,VGX"));
+        assertEquals(EnumMasks.of(Set.<Tag>of()), DishNameDecoder.decodeTags(""));
+    }
+
+    private static String regexName(String name) {
+        return name.contains("(") ? name.split("\\(").length == 0 ? "" : name.split("\\(")[0].trim() : name.trim();
+    }
+
+    private static Set<Additive> regexAdditives(String name) {
+        Set<Additive> additives = new TreeSet<>();
+        for (String digit : name.split("\\(")[1].replaceAll("\\D+", " ").trim().split(" ")) {
+            if (!digit.isEmpty()) {
+                Additive.getAdditiveForIndex(Integer.parseInt(digit)).ifPresent(additives::add);
+            }
+        }
+        return additives;
+    }
+
+    private static Set<Allergen> regexAllergens(String name) {
+        Set<Allergen> allergens = new TreeSet<>();
+        for (String token : name.split("\\(")[1].replaceAll("[^A-Z]+", " ").trim().split(" ")) {
+            Optional<Allergen> allergen = Allergen.getAllergenForToken(token);
+            allergen.ifPresent(allergens::add);
+        }
+        return allergens;
+    }
+}
@@ -0,0 +1,227 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Dish;
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DishPublisherTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private static final Executor EXECUTOR = command -> new Thread(command).start();
+
+    @TempDir
+    Path storagePath;
+
+    @Test
+    void test_publish_equalsParse() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVParser parser = new CSVParser(new CSVFile(storagePath, server.getBaseURI(), 2023, 48), FORMATTER);
+            List<Dish> expected = parser.parseDishes();
+
+            RecordingSubscriber subscriber = new RecordingSubscriber(1);
+            parser.publish(EXECUTOR).subscribe(subscriber);
+            assertEquals(expected, subscriber.done.get(5, TimeUnit.SECONDS));
+
+            RecordingSubscriber vegetarian = new RecordingSubscriber(Long.MAX_VALUE);
+            parser.publish(EXECUTOR).filter(dish -> dish.tags().contains(Tag.V)).subscribe(vegetarian);
+            assertEquals(expected.stream().filter(dish -> dish.tags().contains(Tag.V)).toList(),
+                    vegetarian.done.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void test_publish_honoursDemand() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVParser parser = new CSVParser(new CSVFile(storagePath, server.getBaseURI(), 2023, 48), FORMATTER);
+            int total = parser.parseDishes().size();
+
+            RecordingSubscriber subscriber = new RecordingSubscriber(0);
+            parser.publish(EXECUTOR).subscribe(subscriber);
+            subscriber.subscription.request(5);
+            awaitSize(subscriber, 5);
+            Thread.sleep(100);
+            assertEquals(5, subscriber.dishes.size());
+            assertFalse(subscriber.done.isDone());
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertEquals(total, subscriber.done.get(5, TimeUnit.SECONDS).size());
+        }
+    }
+
+    @Test
+    void test_cancel_releasesFile() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serve(new YearWeek(2023, 1),
+                    new CSVCorpusGenerator.Builder(7).setWeeks(20).build().toBytes());
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 1);
+            CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+            CSVParser parser = new CSVParser(file, FORMATTER, coordinator);
+
+            RecordingSubscriber subscriber = new RecordingSubscriber(0);
+            parser.publish(EXECUTOR).subscribe(subscriber);
+            subscriber.subscription.request(3);
+            awaitSize(subscriber, 3);
+            assertTrue(coordinator.isLeased(new YearWeek(2023, 1)));
+            assertFalse(coordinator.isDownloading(new YearWeek(2023, 1)));
+            subscriber.subscription.cancel();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coordinator.isLeased(new YearWeek(2023, 1)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(coordinator.isLeased(new YearWeek(2023, 1)));
+            try (Stream<Path> files = Files.list(storagePath)) {
+                assertEquals(List.of(file.provideFile().toPath()), files.toList());
+            }
+            assertEquals(3, subscriber.dishes.size());
+            assertFalse(subscriber.done.isDone());
+        }
+    }
+
+    @Test
+    void test_slowSubscriber_doesNotBlockOtherParses() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVFile file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+            CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+            CSVParser parser = new CSVParser(file, FORMATTER, coordinator);
+
+            RecordingSubscriber stalled = new RecordingSubscriber(0);
+            parser.publish(EXECUTOR).subscribe(stalled);
+            stalled.subscription.request(1);
+            awaitSize(stalled, 1);
+
+            CompletableFuture<List<Dish>> other = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new CSVParser(file, FORMATTER, coordinator).parseDishes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertFalse(other.get(5, TimeUnit.SECONDS).isEmpty());
+            stalled.subscription.cancel();
+        }
+    }
+
+    @Test
+    void test_publish_signalsErrors() throws Exception {
+        RecordingSubscriber failing = new RecordingSubscriber(Long.MAX_VALUE);
+        new DishPublisher(consumer -> {
+            throw new IOException("unavailable");
+        }, EXECUTOR).subscribe(failing);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> failing.done.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+
+        RecordingSubscriber negative = new RecordingSubscriber(0);
+        Dish dish = new Dish(null, "Suppe", 0L, 0L, 0L, 100, 200, 300,
+                LocalDate.of(2023, 11, 27));
+        new DishPublisher(consumer -> consumer.accept(dish), EXECUTOR).subscribe(negative);
+        negative.subscription.request(-1);
+        failure = assertThrows(ExecutionException.class, () -> negative.done.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    }
+
+    @Test
+    void test_shutdownNow_signalsError() throws Exception {
+        try (LocalCSVServer server = new LocalCSVServer()) {
+            server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+            CSVDownloadCoordinator coordinator = new CSVDownloadCoordinator();
+            CSVParser parser = new CSVParser(new CSVFile(storagePath, server.getBaseURI(), 2023, 48), FORMATTER,
+                    coordinator);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            RecordingSubscriber subscriber = new RecordingSubscriber(0);
+            parser.publish(executor).subscribe(subscriber);
+            subscriber.subscription.request(3);
+            awaitSize(subscriber, 3);
+            executor.shutdownNow();
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> subscriber.done.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(InterruptedException.class, failure.getCause());
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertFalse(coordinator.isLeased(new YearWeek(2023, 48)));
+            assertEquals(3, subscriber.dishes.size());
+        }
+    }
+
+    private static void awaitSize(final RecordingSubscriber pSubscriber, final int pSize) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pSubscriber.dishes.size() < pSize && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(pSize, pSubscriber.dishes.size());
+    }
+
+    /**
+     * Records the signals of a publisher, requesting a fixed number of dishes at the start and after
+     * every dish.
+     */
+    private static final class RecordingSubscriber implements Flow.Subscriber<Dish> {
+
+        private final long batch;
+
+        private final List<Dish> dishes = Collections.synchronizedList(new ArrayList<>());
+
+        private final CompletableFuture<List<Dish>> done = new CompletableFuture<>();
+
+        private volatile Flow.Subscription subscription;
+
+        private RecordingSubscriber(final long pBatch) {
+            batch = pBatch;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription pSubscription) {
+            subscription = pSubscription;
+            if (batch > 0) {
+                pSubscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(final Dish pDish) {
+            dishes.add(pDish);
+            if (batch > 0 && batch < Long.MAX_VALUE) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable pThrowable) {
+            done.completeExceptionally(pThrowable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(List.copyOf(dishes));
+        }
+    }
+}
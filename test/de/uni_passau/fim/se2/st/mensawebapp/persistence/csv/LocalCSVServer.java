@@ -0,0 +1,151 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the STWNO server that serves CSV files with {@code ETag} and {@code
+ * Last-Modified} validators and answers conditional requests.
+ */
+public class LocalCSVServer implements AutoCloseable {
+
+    private static final String LAST_MODIFIED =
+            DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.of(2023, 11, 24, 12, 0, 0, 0, ZoneOffset.UTC));
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private volatile long responseDelayMillis;
+
+    /**
+     * Starts a server on an ephemeral port of the loopback interface.
+     *
+     * @throws IOException In case the server cannot be started
+     */
+    public LocalCSVServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Serves the content of a test resource under the file name of a week.
+     *
+     * @param pYearWeek The week to serve the file for
+     * @param pResource The name of the test resource
+     */
+    public void serveResource(final YearWeek pYearWeek, final String pResource) {
+        try (InputStream stream = LocalCSVServer.class.getClassLoader().getResourceAsStream(pResource)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Unknown resource " + pResource);
+            }
+            serve(pYearWeek, stream.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serves a content under the file name of a week and changes its validators.
+     *
+     * @param pYearWeek The week to serve the file for
+     * @param pContent  The content of the file
+     */
+    public void serve(final YearWeek pYearWeek, final byte[] pContent) {
+        final String name = "/" + pYearWeek + ".csv";
+        files.put(name, pContent);
+        versions.merge(name, 1, Integer::sum);
+    }
+
+    /**
+     * Delays every response by the given time.
+     *
+     * @param pMillis The delay in milliseconds
+     */
+    public void setResponseDelay(final long pMillis) {
+        responseDelayMillis = pMillis;
+    }
+
+    /**
+     * Provides the base URI of the server.
+     *
+     * @return The base URI of the server
+     */
+    public URI getBaseURI() {
+        return URI.create(String.format("http://%s:%d",
+                server.getAddress().getHostString(), server.getAddress().getPort()));
+    }
+
+    /**
+     * Provides the number of responses that had the full file as a body.
+     *
+     * @return The number of {@code 200 OK} responses
+     */
+    public int getFullResponses() {
+        return fullResponses.get();
+    }
+
+    /**
+     * Provides the number of responses that told the client to keep its copy.
+     *
+     * @return The number of {@code 304 Not Modified} responses
+     */
+    public int getNotModifiedResponses() {
+        return notModifiedResponses.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange pExchange) throws IOException {
+        try (pExchange) {
+            if (responseDelayMillis > 0) {
+                Thread.sleep(responseDelayMillis);
+            }
+            final String name = pExchange.getRequestURI().getPath();
+            final byte[] content = files.get(name);
+            if (content == null) {
+                pExchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final String eTag = String.format("\"%s-%d\"", name.substring(1), versions.get(name));
+            pExchange.getResponseHeaders().set("ETag", eTag);
+            pExchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+            if (eTag.equals(pExchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                pExchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            fullResponses.incrementAndGet();
+            pExchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = pExchange.getResponseBody()) {
+                body.write(content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
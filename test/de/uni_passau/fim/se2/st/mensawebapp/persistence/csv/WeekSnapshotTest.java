@@ -0,0 +1,119 @@
+package de.uni_passau.fim.se2.st.mensawebapp.persistence.csv;
+
+import de.uni_passau.fim.se2.st.mensawebapp.global.dish.WeekMenu;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeekSnapshotTest {
+
+    @TempDir
+    Path storagePath;
+
+    private LocalCSVServer server;
+
+    private CSVFile file;
+
+    private WeekMenu menu;
+
+    private CSVFile.Version version;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new LocalCSVServer();
+        server.serveResource(new YearWeek(2023, 48), "2023-48.csv");
+        file = new CSVFile(storagePath, server.getBaseURI(), 2023, 48);
+        CSVParser.VersionedMenu parsed = new CSVParser(file, DateTimeFormatter.ofPattern("dd.MM.yyyy"))
+                .parseVersionedMenu();
+        menu = parsed.menu();
+        version = parsed.version();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void test_read_roundTrip() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        Optional<WeekMenu> snapshot = WeekSnapshot.read(file, 60);
+        assertTrue(snapshot.isPresent());
+        assertEquals(menu.getDishes(), snapshot.get().getDishes());
+        assertEquals(menu.getDates(), snapshot.get().getDates());
+        assertTrue(Files.size(file.getSnapshotPath()) < Files.size(file.provideFile().toPath()) * 2);
+    }
+
+    @Test
+    void test_read_missing() {
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+    }
+
+    @Test
+    void test_read_tooOld() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        assertTrue(WeekSnapshot.read(file, -1).isEmpty());
+    }
+
+    @Test
+    void test_read_sourceChanged() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        Path csv = file.provideFile().toPath();
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() - 5000));
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+    }
+
+    @Test
+    void test_read_otherVersionParsed() throws IOException {
+        assertEquals(file.readVersion(), version);
+        WeekSnapshot.write(file, menu, new CSVFile.Version(version.size() + 1, version.lastModified()));
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+    }
+
+    @Test
+    void test_read_otherSource() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        try (LocalCSVServer other = new LocalCSVServer()) {
+            CSVFile otherFile = new CSVFile(storagePath, other.getBaseURI(), 2023, 48);
+            assertTrue(WeekSnapshot.read(otherFile, 60).isEmpty());
+        }
+    }
+
+    @Test
+    void test_read_otherVersion() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        byte[] bytes = Files.readAllBytes(file.getSnapshotPath());
+        bytes[5]++;
+        Files.write(file.getSnapshotPath(), bytes);
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+    }
+
+    @Test
+    void test_read_corrupt() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        byte[] bytes = Files.readAllBytes(file.getSnapshotPath());
+        Files.write(file.getSnapshotPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+        bytes[bytes.length / 2]++;
+        Files.write(file.getSnapshotPath(), bytes);
+        assertTrue(WeekSnapshot.read(file, 60).isEmpty());
+    }
+
+    @Test
+    void test_delete_removesSnapshot() throws IOException {
+        WeekSnapshot.write(file, menu, version);
+        assertTrue(file.delete());
+        assertFalse(Files.exists(file.getSnapshotPath()));
+    }
+}